@@ -1,5 +1,11 @@
 package com.example.finalproject;
 
+import com.example.finalproject.dao.DBConnection;
+import com.example.finalproject.dao.SchemaMigrator;
+import com.example.finalproject.security.PasswordHasher;
+import com.example.finalproject.service.CartStore;
+import com.example.finalproject.service.OrderIngestQueue;
+import com.example.finalproject.service.StockReservationService;
 import javafx.application.Application;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Scene;
@@ -11,11 +17,24 @@ public class HelloApplication extends Application {
     @Override
     public void start(Stage stage) throws Exception {
         mainStage = stage;
+        SchemaMigrator.migrate();
+        PasswordHasher.calibrateAsync();
+        StockReservationService.getInstance().start();
+        CartStore.getInstance().start();
+        OrderIngestQueue.getInstance().start();
         setRoot("view/login.fxml");
         stage.setTitle("E-Commerce App");
         stage.show();
     }
 
+    @Override
+    public void stop() {
+        OrderIngestQueue.getInstance().stop();
+        StockReservationService.getInstance().stop();
+        CartStore.getInstance().stop();
+        DBConnection.shutdown();
+    }
+
     public static void setRoot(String fxml) {
         try {
             FXMLLoader loader = new FXMLLoader(HelloApplication.class.getResource(fxml));
@@ -4,14 +4,25 @@ import com.example.finalproject.HelloApplication;
 import com.example.finalproject.model.Order;
 import com.example.finalproject.security.AuthGuard;
 import com.example.finalproject.security.Session;
+import com.example.finalproject.service.CsvExportService;
 import com.example.finalproject.service.InvoiceService;
 import com.example.finalproject.service.OrderService;
+import com.example.finalproject.service.PdfExportService;
+import com.example.finalproject.util.FxAsync;
+import com.example.finalproject.util.LatestRequest;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.DoubleConsumer;
+
 public class AdminOrdersController {
 
     @FXML private TableView<Order> orderTable;
@@ -22,8 +33,16 @@ public class AdminOrdersController {
     @FXML private TableColumn<Order, String> colDate;
     @FXML private TextField searchField;
     @FXML private ComboBox<String> statusFilter;
+    @FXML private ProgressBar exportProgress;
 
     private final OrderService service = new OrderService();
+    // A filter applied while the full list is still loading must win
+    private final LatestRequest ordersRequest = new LatestRequest();
+    private final CsvExportService csvExporter = new CsvExportService();
+    private final PdfExportService pdfExporter = new PdfExportService();
+    private CompletableFuture<String> export;
+    private Button exportButton;
+    private String exportButtonText;
 
     @FXML
     public void initialize() {
@@ -40,15 +59,26 @@ public class AdminOrdersController {
     }
 
     private void loadData() {
-        orderTable.setItems(FXCollections.observableArrayList(service.getAllOrders()));
+        ordersRequest.submit(service::getAllOrders, this::showOrders, this::onLoadFailed);
+    }
+
+    private void showOrders(List<Order> orders) {
+        orderTable.setItems(FXCollections.observableArrayList(orders));
+    }
+
+    private void onLoadFailed(Throwable t) {
+        t.printStackTrace();
+        showAlert("❌ Error loading orders: " + t.getMessage());
     }
 
     @FXML
     private void onDeliver() {
         Order selected = orderTable.getSelectionModel().getSelectedItem();
         if (selected != null) {
-            service.markDelivered(selected.getId());
-            loadData();
+            FxAsync.load(() -> {
+                service.markDelivered(selected.getId());
+                return null;
+            }, v -> loadData(), this::onLoadFailed);
         } else showAlert("Select an order to mark as delivered.");
     }
 
@@ -56,8 +86,10 @@ public class AdminOrdersController {
     private void onDelete() {
         Order selected = orderTable.getSelectionModel().getSelectedItem();
         if (selected != null) {
-            service.deleteOrder(selected.getId());
-            loadData();
+            FxAsync.load(() -> {
+                service.deleteOrder(selected.getId());
+                return null;
+            }, v -> loadData(), this::onLoadFailed);
         } else showAlert("Select an order to delete.");
     }
 
@@ -68,7 +100,7 @@ public class AdminOrdersController {
         String keyword = searchField.getText().trim();
         String status = statusFilter.getValue();
 
-        orderTable.setItems(FXCollections.observableArrayList(service.filterOrders(keyword, status)));
+        ordersRequest.submit(() -> service.filterOrders(keyword, status), this::showOrders, this::onLoadFailed);
     }
 
     @FXML
@@ -84,62 +116,93 @@ public class AdminOrdersController {
     }
 
     @FXML
-    private void onExportCSV() {
-        try {
-            java.io.File file = new java.io.File("orders_export.csv");
-            try (java.io.FileWriter writer = new java.io.FileWriter(file)) {
-                writer.write("OrderID,UserID,Total,Status,CreatedAt\n");
-                for (var order : service.getAllOrders()) {
-                    writer.write(order.getId() + "," +
-                            order.getUserId() + "," +
-                            order.getTotal() + "," +
-                            order.getStatus() + "," +
-                            order.getCreatedAt() + "\n");
-                }
-            }
-            showAlert("✅ Orders exported to: " + file.getAbsolutePath());
-        } catch (Exception e) {
-            e.printStackTrace();
-            showAlert("❌ Error exporting CSV: " + e.getMessage());
-        }
+    private void onExportCSV(ActionEvent event) {
+        java.nio.file.Path file = java.nio.file.Path.of("orders_export.csv");
+        runExport((Button) event.getSource(), progress ->
+                "✅ " + csvExporter.exportOrders(file, progress) + " orders exported to: " + file.toAbsolutePath());
     }
 
     @FXML
-    private void onExportPDF() {
-        try {
-            String pdfPath = "orders_export.pdf";
-
-            com.itextpdf.text.Document doc = new com.itextpdf.text.Document();
-            com.itextpdf.text.pdf.PdfWriter.getInstance(doc,
-                    new java.io.FileOutputStream(pdfPath));
-            doc.open();
-
-            doc.add(new com.itextpdf.text.Paragraph("Orders Report"));
-            doc.add(new com.itextpdf.text.Paragraph(" "));
-
-            com.itextpdf.text.pdf.PdfPTable table = new com.itextpdf.text.pdf.PdfPTable(5);
-            table.addCell("Order ID");
-            table.addCell("User ID");
-            table.addCell("Total");
-            table.addCell("Status");
-            table.addCell("Created At");
-
-            for (var o : service.getAllOrders()) {
-                table.addCell(String.valueOf(o.getId()));
-                table.addCell(String.valueOf(o.getUserId()));
-                table.addCell(String.format("%.2f", o.getTotal()));
-                table.addCell(o.getStatus());
-                table.addCell(o.getCreatedAt().toString());
-            }
+    private void onExportPDF(ActionEvent event) {
+        java.nio.file.Path file = java.nio.file.Path.of("orders_export.pdf");
+        runExport((Button) event.getSource(), progress ->
+                "✅ PDF with " + pdfExporter.exportOrders(file, progress) + " orders generated at: " + file.toAbsolutePath());
+    }
+
+    @FXML
+    private void onBulkInvoices(ActionEvent event) {
+        Button button = (Button) event.getSource();
+        if (export != null) {
+            runExport(button, null);   // cancels it, or says another one is running
+            return;
+        }
+        DatePicker from = new DatePicker(LocalDate.now().withDayOfMonth(1));
+        DatePicker to = new DatePicker(LocalDate.now());
+        Dialog<ButtonType> dialog = new Dialog<>();
+        dialog.setTitle("Invoices by Date");
+        dialog.setHeaderText("Generate invoices for every order created between:");
+        CheckBox zip = new CheckBox("As a single .zip file");
+        dialog.getDialogPane().setContent(new javafx.scene.layout.VBox(10,
+                new javafx.scene.layout.HBox(10, from, new Label("and"), to), zip));
+        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
+        if (dialog.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) return;
+        if (from.getValue() == null || to.getValue() == null || to.getValue().isBefore(from.getValue())) {
+            showAlert("Please choose a valid date range.");
+            return;
+        }
 
-            doc.add(table);
-            doc.close();
+        java.nio.file.Path dir = java.nio.file.Path.of("invoices", from.getValue() + "_" + to.getValue());
+        boolean asZip = zip.isSelected();
+        runExport(button, progress ->
+                "✅ " + pdfExporter.generateInvoices(from.getValue(), to.getValue(), dir, asZip, progress)
+                        + " invoices saved to: " + dir.toAbsolutePath() + (asZip ? ".zip" : ""));
+    }
 
-            showAlert("✅ PDF generated at: " + pdfPath);
-        } catch (Exception e) {
-            e.printStackTrace();
-            showAlert("❌ Error generating PDF: " + e.getMessage());
+    /**
+     * Runs one export at a time in the background with the progress bar showing;
+     * clicking the same button again cancels it.
+     */
+    private void runExport(Button button, ExportJob job) {
+        if (export != null) {
+            if (button != exportButton) {
+                showAlert("Another export is still running.");
+                return;
+            }
+            export.cancel(true);
+            endExport();
+            showAlert("Export cancelled.");
+            return;
         }
+        if (job == null) return;
+        exportButton = button;
+        exportButtonText = button.getText();
+        button.setText("✖ Cancel");
+        exportProgress.setProgress(0);
+        exportProgress.setVisible(true);
+        exportProgress.setManaged(true);
+        export = FxAsync.load(
+                () -> job.run(p -> Platform.runLater(() -> exportProgress.setProgress(p))),
+                message -> {
+                    endExport();
+                    showAlert(message);
+                },
+                e -> {
+                    endExport();
+                    e.printStackTrace();
+                    showAlert("❌ Export failed: " + e.getMessage());
+                });
+    }
+
+    private void endExport() {
+        export = null;
+        exportButton.setText(exportButtonText);
+        exportProgress.setVisible(false);
+        exportProgress.setManaged(false);
+    }
+
+    @FunctionalInterface
+    private interface ExportJob {
+        String run(DoubleConsumer progress) throws Exception;
     }
 
     @FXML
@@ -159,13 +222,12 @@ public class AdminOrdersController {
             return;
         }
 
-        try {
-            java.nio.file.Path pdf = new InvoiceService().generateInvoice(selected.getId());
-            showAlert("✅ Invoice saved to: " + pdf.toString());
-        } catch (Exception e) {
-            e.printStackTrace();
-            showAlert("❌ Failed to generate invoice: " + e.getMessage());
-        }
+        FxAsync.load(() -> new InvoiceService().generateInvoice(selected.getId()),
+                pdf -> showAlert("✅ Invoice saved to: " + pdf.toString()),
+                e -> {
+                    e.printStackTrace();
+                    showAlert("❌ Failed to generate invoice: " + e.getMessage());
+                });
     }
 
 
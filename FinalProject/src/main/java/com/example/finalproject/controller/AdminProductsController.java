@@ -4,7 +4,9 @@ import com.example.finalproject.HelloApplication;
 import com.example.finalproject.model.Product;
 import com.example.finalproject.security.AuthGuard;
 import com.example.finalproject.security.Session;
+import com.example.finalproject.service.ImageCache;
 import com.example.finalproject.service.ProductService;
+import com.example.finalproject.util.LatestRequest;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -15,8 +17,6 @@ import javafx.scene.control.*;
 import javafx.scene.image.ImageView;
 import javafx.stage.Stage;
 
-import java.util.List;
-
 public class AdminProductsController {
 
     @FXML private TableView<Product> table;
@@ -30,6 +30,7 @@ public class AdminProductsController {
 
     private final ProductService productService = new ProductService();
     private final ObservableList<Product> productList = FXCollections.observableArrayList();
+    private final LatestRequest refreshRequest = new LatestRequest();
 
     @FXML
     public void initialize() {
@@ -53,7 +54,7 @@ public class AdminProductsController {
                     imageView.setFitWidth(60);
                     imageView.setFitHeight(60);
                     imageView.setPreserveRatio(true);
-                    imageView.setImage(new javafx.scene.image.Image("file:" + path, 60, 60, true, true));
+                    ImageCache.getInstance().load(imageView, path, 60);
                     setGraphic(imageView);
                 }
             }
@@ -64,9 +65,13 @@ public class AdminProductsController {
 
     // ✅ Load all products
     private void refresh() {
-        List<Product> products = productService.getAll();
-        productList.setAll(products);
-        msgLabel.setText("");
+        refreshRequest.submit(productService::getAll, products -> {
+            productList.setAll(products);
+            msgLabel.setText("");
+        }, e -> {
+            msgLabel.setStyle("-fx-text-fill: red;");
+            msgLabel.setText("❌ " + e.getMessage());
+        });
     }
 
     // ✅ Add button
@@ -5,6 +5,7 @@ import com.example.finalproject.dao.PromotionDao;
 import com.example.finalproject.model.Product;
 import com.example.finalproject.model.Promotion;
 import com.example.finalproject.security.AuthGuard;
+import com.example.finalproject.service.DiscountResolver;
 import com.example.finalproject.service.ProductService;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleIntegerProperty;
@@ -151,6 +152,7 @@ public class AdminPromotionsController {
         dialog.showAndWait().ifPresent(promo -> {
             try {
                 dao.insert(promo);
+                DiscountResolver.getInstance().invalidate();
                 refresh();
                 msgLabel.setStyle("-fx-text-fill: green;");
                 msgLabel.setText("✅ Promotion added successfully!");
@@ -178,6 +180,7 @@ public class AdminPromotionsController {
             return;
         }
         dao.delete(selected.getId());
+        DiscountResolver.getInstance().invalidate();
         refresh();
         msgLabel.setStyle("-fx-text-fill: green;");
         msgLabel.setText("✅ Promotion deleted!");
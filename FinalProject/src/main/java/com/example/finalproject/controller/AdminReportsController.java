@@ -1,31 +1,51 @@
 package com.example.finalproject.controller;
 
 import com.example.finalproject.HelloApplication;
-import com.example.finalproject.dao.ReportDao;
 import com.example.finalproject.model.TopProduct;
 import com.example.finalproject.security.AuthGuard;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.fxml.FXML;
 import javafx.scene.chart.BarChart;
 import javafx.scene.chart.CategoryAxis;
 import javafx.scene.chart.NumberAxis;
+import javafx.scene.chart.PieChart;
 import javafx.scene.chart.XYChart;
 import javafx.scene.control.*;
 import com.example.finalproject.security.Session;
+import com.example.finalproject.service.CsvExportService;
+import com.example.finalproject.service.ReportService;
+import com.example.finalproject.util.FxAsync;
+import com.example.finalproject.util.LatestRequest;
 
-import java.io.FileWriter;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class AdminReportsController {
 
     @FXML private Label totalRevenueLabel;
     @FXML private BarChart<String, Number> salesChart;
+    @FXML private PieChart categoryChart;
+    @FXML private ComboBox<String> rangeBox;
+    @FXML private ComboBox<String> categoryBox;
     @FXML private TableView<TopProduct> topProductsTable;
     @FXML private TableColumn<TopProduct, String> colProduct;
     @FXML private TableColumn<TopProduct, Integer> colQty;
     @FXML private TableColumn<TopProduct, Double> colRevenue;
+    @FXML private Button exportCsvButton;
+    @FXML private ProgressBar exportProgress;
 
-    private final ReportDao dao = new ReportDao();
+    private static final String ALL_TIME = "All time";
+    private static final String ALL_CATEGORIES = "All categories";
+    private static final int TOP_PRODUCTS = 20;
+
+    private final ReportService reports = ReportService.getInstance();
+    private final LatestRequest loadRequest = new LatestRequest();
+    private final CsvExportService exporter = new CsvExportService();
+    private CompletableFuture<Long> csvExport;
 
     @FXML
     public void initialize() {
@@ -33,42 +53,113 @@ public class AdminReportsController {
         colProduct.setCellValueFactory(c -> new javafx.beans.property.SimpleStringProperty(c.getValue().getProductName()));
         colQty.setCellValueFactory(c -> new javafx.beans.property.SimpleIntegerProperty(c.getValue().getQuantitySold()).asObject());
         colRevenue.setCellValueFactory(c -> new javafx.beans.property.SimpleDoubleProperty(c.getValue().getRevenue()).asObject());
-        loadData();
+
+        rangeBox.setItems(FXCollections.observableArrayList("Last 7 days", "Last 30 days", "Last 90 days", "Last 12 months", ALL_TIME));
+        rangeBox.setValue(ALL_TIME);
+        categoryBox.setItems(FXCollections.observableArrayList(ALL_CATEGORIES));
+        categoryBox.setValue(ALL_CATEGORIES);
+        rangeBox.valueProperty().addListener((obs, o, n) -> reslice());
+        categoryBox.valueProperty().addListener((obs, o, n) -> reslice());
+        loadData(false);
+    }
+
+    // Loads the analytics once from the sales aggregates (or again on refresh); changing the period or category only re-slices
+    // Only the newest load is kept: a second Refresh cancels the first, whose result is dropped
+    private void loadData(boolean reload) {
+        loadRequest.submit(() -> {
+            if (reload) reports.reload();
+            else reports.ensureLoaded();
+            return reports.getCategories();
+        }, categories -> {
+            String selected = categoryBox.getValue();
+            List<String> items = new ArrayList<>();
+            items.add(ALL_CATEGORIES);
+            items.addAll(categories.stream().sorted().toList());
+            categoryBox.setItems(FXCollections.observableArrayList(items));
+            categoryBox.setValue(items.contains(selected) ? selected : ALL_CATEGORIES);
+            reslice();
+        }, this::onLoadFailed);
     }
 
-    private void loadData() {
-        // 🧾 Total revenue
-        double total = dao.getTotalRevenue();
+    private void reslice() {
+        if (!reports.isLoaded() || rangeBox.getValue() == null) return;
+        LocalDate to = LocalDate.now();
+        LocalDate from = switch (rangeBox.getValue()) {
+            case "Last 7 days" -> to.minusDays(6);
+            case "Last 30 days" -> to.minusDays(29);
+            case "Last 90 days" -> to.minusDays(89);
+            case "Last 12 months" -> to.minusMonths(12).plusDays(1);
+            default -> {
+                LocalDate first = reports.firstDay(), last = reports.lastDay();
+                if (last != null && last.isAfter(to)) to = last;
+                yield first != null ? first : to;
+            }
+        };
+        String category = ALL_CATEGORIES.equals(categoryBox.getValue()) ? null : categoryBox.getValue();
+
+        // 🧾 Revenue of the period
+        Map<String, Double> byCategory = reports.categoryRevenue(from, to);
+        double total = category == null ? reports.revenue(from, to) : byCategory.getOrDefault(category, 0.0);
         totalRevenueLabel.setText("💰 Total Revenue (Delivered Orders): $" + String.format("%.2f", total));
 
         // 📈 Daily sales chart
         salesChart.getData().clear();
         XYChart.Series<String, Number> series = new XYChart.Series<>();
-        dao.getDailySales().forEach(s -> series.getData().add(new XYChart.Data<>(s.getDate(), s.getRevenue())));
+        reports.dailySales(from, to, category).forEach(s -> series.getData().add(new XYChart.Data<>(s.getDate(), s.getRevenue())));
         series.setName("Daily Revenue");
         salesChart.getData().add(series);
 
+        // 🏷 Revenue by category
+        List<PieChart.Data> slices = new ArrayList<>();
+        byCategory.forEach((name, revenue) -> slices.add(new PieChart.Data(name + String.format(" ($%.0f)", revenue), revenue)));
+        categoryChart.setData(FXCollections.observableArrayList(slices));
+
         // 🥇 Top-selling products
-        topProductsTable.setItems(FXCollections.observableArrayList(dao.getTopSellingProducts()));
+        topProductsTable.setItems(FXCollections.observableArrayList(reports.topProducts(from, to, category, TOP_PRODUCTS)));
+    }
+
+    private void onLoadFailed(Throwable t) {
+        t.printStackTrace();
+        showAlert("❌ Error loading reports: " + t.getMessage());
     }
 
     @FXML
     private void onRefresh() {
-        loadData();
+        loadData(true);
     }
 
     @FXML
     private void onExportCSV() {
-        try (FileWriter writer = new FileWriter("sales_report.csv")) {
-            writer.write("Product,Quantity Sold,Revenue\n");
-            for (TopProduct tp : dao.getTopSellingProducts()) {
-                writer.write(String.format("%s,%d,%.2f\n", tp.getProductName(), tp.getQuantitySold(), tp.getRevenue()));
-            }
-            showAlert("✅ CSV Exported: sales_report.csv");
-        } catch (Exception e) {
-            e.printStackTrace();
-            showAlert("❌ Error exporting CSV: " + e.getMessage());
+        // A second click cancels the running export
+        if (csvExport != null) {
+            csvExport.cancel(true);
+            endCsvExport();
+            showAlert("Export cancelled.");
+            return;
         }
+        java.nio.file.Path file = java.nio.file.Path.of("sales_report.csv");
+        exportCsvButton.setText("✖ Cancel export");
+        exportProgress.setProgress(0);
+        exportProgress.setVisible(true);
+        exportProgress.setManaged(true);
+        csvExport = FxAsync.load(
+                () -> exporter.exportTopProducts(file, p -> Platform.runLater(() -> exportProgress.setProgress(p))),
+                rows -> {
+                    endCsvExport();
+                    showAlert("✅ " + rows + " products exported to: " + file.toAbsolutePath());
+                },
+                e -> {
+                    endCsvExport();
+                    e.printStackTrace();
+                    showAlert("❌ Error exporting CSV: " + e.getMessage());
+                });
+    }
+
+    private void endCsvExport() {
+        csvExport = null;
+        exportCsvButton.setText("💾 Export CSV");
+        exportProgress.setVisible(false);
+        exportProgress.setManaged(false);
     }
 
     @FXML
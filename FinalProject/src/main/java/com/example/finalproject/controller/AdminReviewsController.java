@@ -5,6 +5,7 @@ import com.example.finalproject.dao.ReviewDao;
 import com.example.finalproject.model.Review;
 import com.example.finalproject.security.AuthGuard;
 import com.example.finalproject.security.Session;
+import com.example.finalproject.util.SearchIndex;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.collections.transformation.FilteredList;
@@ -12,7 +13,11 @@ import javafx.collections.transformation.SortedList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+
+import static com.example.finalproject.util.SearchIndex.field;
 
 public class AdminReviewsController {
 
@@ -26,6 +31,7 @@ public class AdminReviewsController {
 
     private final ReviewDao dao = new ReviewDao();
     private ObservableList<Review> reviewList;
+    private final SearchIndex<Integer> searchIndex = new SearchIndex<>();
 
     @FXML
     public void initialize() {
@@ -41,19 +47,24 @@ public class AdminReviewsController {
         // --- Load data ---
         List<Review> reviews = dao.getAllReviewsForAdmin();
         reviewList = FXCollections.observableArrayList(reviews);
+        for (Review r : reviews) {
+            searchIndex.put(r.getId(),
+                    field(r.getUsername(), 2),
+                    field(r.getProductName(), 2),
+                    field(r.getComment(), 1),
+                    field(String.valueOf(r.getRating()), 1));
+        }
 
-        // --- Enable search filtering ---
+        // --- Enable search filtering (full-text index: prefixes and small typos match) ---
         FilteredList<Review> filteredList = new FilteredList<>(reviewList, b -> true);
 
         searchField.textProperty().addListener((obs, oldVal, newVal) -> {
-            String filter = newVal.toLowerCase().trim();
-            filteredList.setPredicate(r -> {
-                if (filter.isEmpty()) return true;
-                return r.getUsername().toLowerCase().contains(filter)
-                        || r.getProductName().toLowerCase().contains(filter)
-                        || r.getComment().toLowerCase().contains(filter)
-                        || String.valueOf(r.getRating()).contains(filter);
-            });
+            if (newVal.isBlank()) {
+                filteredList.setPredicate(r -> true);
+                return;
+            }
+            Set<Integer> hits = new HashSet<>(searchIndex.search(newVal));
+            filteredList.setPredicate(r -> hits.contains(r.getId()));
         });
 
         SortedList<Review> sortedList = new SortedList<>(filteredList);
@@ -69,13 +80,13 @@ public class AdminReviewsController {
             return;
         }
 
-        try {
-            java.sql.Connection conn = com.example.finalproject.dao.DBConnection.getInstance();
-            java.sql.PreparedStatement ps = conn.prepareStatement("DELETE FROM review WHERE id=?");
+        try (java.sql.Connection conn = com.example.finalproject.dao.DBConnection.getConnection();
+             java.sql.PreparedStatement ps = conn.prepareStatement("DELETE FROM review WHERE id=?")) {
             ps.setInt(1, selected.getId());
             ps.executeUpdate();
 
             reviewList.remove(selected);
+            searchIndex.remove(selected.getId());
             showAlert("Review deleted successfully.");
         } catch (Exception e) {
             e.printStackTrace();
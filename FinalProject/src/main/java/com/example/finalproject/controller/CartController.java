@@ -1,21 +1,22 @@
 package com.example.finalproject.controller;
 
 import com.example.finalproject.HelloApplication;
+import com.example.finalproject.model.CartLine;
 import com.example.finalproject.model.Order;
 import com.example.finalproject.model.OrderItem;
-import com.example.finalproject.model.Product;
 import com.example.finalproject.security.AuthGuard;
 import com.example.finalproject.security.JwtService;
 import com.example.finalproject.security.Session;
 import com.example.finalproject.service.CartService;
 import com.example.finalproject.service.OrderService;
+import com.example.finalproject.service.StockReservationService;
+import com.example.finalproject.util.FxAsync;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class CartController {
 
@@ -39,20 +40,28 @@ public class CartController {
     }
 
     private void refreshTable() {
+        int userId = Session.getUserId();
         ObservableList<CartItem> items = FXCollections.observableArrayList();
-        for (Map.Entry<Product, Integer> e : cartService.getItems().entrySet()) {
-            items.add(new CartItem(e.getKey(), e.getValue()));
+        for (CartLine line : cartService.getLines(userId)) {
+            items.add(new CartItem(line));
         }
         cartTable.setItems(items);
-        totalLabel.setText(String.format("$%.2f", cartService.getTotal()));
+        totalLabel.setText(String.format("$%.2f", cartService.getTotal(userId)));
     }
 
     @FXML
     private void onRemove() {
         CartItem selected = cartTable.getSelectionModel().getSelectedItem();
         if (selected != null) {
-            cartService.removeItem(selected.getProduct());
-            refreshTable();
+            int userId = Session.getUserId();
+            int productId = selected.getProduct().getId();
+            cartTable.getItems().remove(selected);
+            // Drop the line and give the held units back to stock, then show the new total
+            FxAsync.load(() -> {
+                cartService.removeItem(userId, productId);
+                StockReservationService.getInstance().release(userId, productId);
+                return null;
+            }, v -> refreshTable());
         } else {
             showAlert("No selection", "Please select an item to remove.");
         }
@@ -60,7 +69,7 @@ public class CartController {
 
     @FXML
     private void onCheckout() {
-        if (cartService.getItems().isEmpty()) {
+        if (cartService.isEmpty(Session.getUserId())) {
             showAlert("Cart is empty!", "Add some items first.");
             return;
         }
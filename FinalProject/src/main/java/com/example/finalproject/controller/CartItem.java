@@ -1,5 +1,6 @@
 package com.example.finalproject.controller;
 
+import com.example.finalproject.model.CartLine;
 import com.example.finalproject.model.Product;
 import javafx.beans.property.*;
 
@@ -10,12 +11,12 @@ public class CartItem {
     private final IntegerProperty quantity;
     private final DoubleProperty total;
 
-    public CartItem(Product product, int quantity) {
-        this.product = product;
+    public CartItem(CartLine line) {
+        this.product = line.getProduct();
         this.name = new SimpleStringProperty(product.getName());
-        this.price = new SimpleDoubleProperty(product.getPrice());
-        this.quantity = new SimpleIntegerProperty(quantity);
-        this.total = new SimpleDoubleProperty(product.getPrice() * quantity);
+        this.price = new SimpleDoubleProperty(line.getUnitPrice());
+        this.quantity = new SimpleIntegerProperty(line.getQuantity());
+        this.total = new SimpleDoubleProperty(line.getLineTotal());
     }
 
     public Product getProduct() { return product; }
@@ -1,21 +1,22 @@
 package com.example.finalproject.controller;
 
 import com.example.finalproject.HelloApplication;
-import com.example.finalproject.dao.OrderDao;
+import com.example.finalproject.dao.OutOfStockException;
+import com.example.finalproject.dao.UserDao;
+import com.example.finalproject.model.CartLine;
 import com.example.finalproject.model.Order;
 import com.example.finalproject.model.OrderItem;
-import com.example.finalproject.model.Product;
+import com.example.finalproject.model.User;
 import com.example.finalproject.security.AuthGuard;
-import com.example.finalproject.security.JwtService;
 import com.example.finalproject.security.Session;
 import com.example.finalproject.service.CartService;
+import com.example.finalproject.service.OrderService;
+import com.example.finalproject.util.FxAsync;
 import javafx.fxml.FXML;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Label;
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 public class CheckoutController {
 
@@ -23,53 +24,63 @@ public class CheckoutController {
     private Label totalLabel;
 
     private final CartService cartService = CartService.getInstance();
-    private final OrderDao orderDao = new OrderDao();
+    private final OrderService orderService = new OrderService();
+    private final UserDao userDao = new UserDao();
+    private boolean placing;
 
     @FXML
     public void initialize() {
         AuthGuard.requireLogin();
-        double total = cartService.getTotal();
+        double total = cartService.getTotal(Session.getUserId());
         totalLabel.setText(String.format("Total: $%.2f", total));
     }
 
     @FXML
     private void onConfirmOrder() {
-        try {
-            int userId = JwtService.getUserId(Session.getToken());
-            Map<Product, Integer> cartItems = cartService.getItems();
+        if (placing) return;
+        int userId = Session.getUserId();
+        List<CartLine> cartLines = cartService.getLines(userId);
 
-            if (cartItems.isEmpty()) {
-                showAlert("Your cart is empty!");
-                return;
-            }
-
-            // Prepare order items
-            // CheckoutController.onConfirmOrder()
-            List<OrderItem> orderItems = new ArrayList<>();
-            for (var entry : cartItems.entrySet()) {
-                Product p = entry.getKey();
-                int qty = entry.getValue();
-                double unit = p.getEffectivePrice();        // 🔸 use discounted price
-                orderItems.add(new OrderItem(0, 0, p.getId(), qty, unit));
-            }
+        if (cartLines.isEmpty()) {
+            showAlert("Your cart is empty!");
+            return;
+        }
 
-            Order order = new Order();
-            order.setUserId(userId);
-            order.setItems(orderItems);
-            order.setTotal(cartService.getTotal());          // 🔸 now discounted
-            order.setStatus("PENDING");
-            orderDao.saveOrder(order);
+        // Prepare order items
+        // CheckoutController.onConfirmOrder()
+        List<OrderItem> orderItems = new ArrayList<>();
+        for (CartLine line : cartLines) {
+            double unit = line.getUnitPrice();          // 🔸 discounted price when it was added
+            orderItems.add(new OrderItem(0, 0, line.getProductId(), line.getQuantity(), unit));
+        }
 
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setItems(orderItems);
+        order.setTotal(cartService.getTotal(userId));    // 🔸 now discounted
+        order.setStatus("PENDING");
 
+        // Queued with other checkouts and committed in the background
+        placing = true;
+        FxAsync.load(() -> {
+            order.setShippingAddress(userDao.findById(userId).map(User::getAddress).orElse(""));
+            return orderService.placeOrder(order);
+        }, id -> {
+            placing = false;
             // Clear cart
-            cartService.clear();
+            cartService.clear(userId);
 
             showAlert("✅ Order placed successfully!");
             HelloApplication.setRoot("view/customer_home.fxml");
-        } catch (SQLException e) {
-            e.printStackTrace();
-            showAlert("❌ Error saving order: " + e.getMessage());
-        }
+        }, e -> {
+            placing = false;
+            if (e instanceof OutOfStockException oos) {
+                showAlert("❌ Sorry, product #" + oos.getProductId() + " no longer has enough stock for your order.");
+            } else {
+                e.printStackTrace();
+                showAlert("❌ Error saving order: " + e.getMessage());
+            }
+        });
     }
 
     @FXML
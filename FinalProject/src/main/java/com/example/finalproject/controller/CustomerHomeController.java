@@ -1,88 +1,118 @@
 package com.example.finalproject.controller;
 
 import com.example.finalproject.HelloApplication;
-import com.example.finalproject.dao.ProductDao;
 import com.example.finalproject.dao.WishlistDao;
 import com.example.finalproject.model.Product;
-import com.example.finalproject.model.ShoppingCart;
+import com.example.finalproject.model.ProductCard;
+import com.example.finalproject.model.ProductSort;
 import com.example.finalproject.security.AuthGuard;
 import com.example.finalproject.security.Session;
 import com.example.finalproject.service.ProductService;
 import com.example.finalproject.service.CartService;
-import com.example.finalproject.service.ReviewService;
+import com.example.finalproject.service.ImageCache;
+import com.example.finalproject.service.StockReservationService;
+import com.example.finalproject.util.FxAsync;
+import com.example.finalproject.util.LatestRequest;
+import com.example.finalproject.util.VirtualGrid;
+import javafx.animation.PauseTransition;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
-import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.util.Duration;
 import com.example.finalproject.controller.ReviewPopupController;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 public class CustomerHomeController {
 
     @FXML
-    private FlowPane productGrid;
+    private VirtualGrid<ProductCard> productGrid;
+    @FXML private VBox emptyState;
 
     private final ProductService productService = new ProductService();
     private final CartService cartService = CartService.getInstance();
-    private final ProductDao productDao = new ProductDao();
-    private int currentPage = 1;
-    private final int ITEMS_PER_PAGE = 14;
-    private List<Product> allProducts;
-    @FXML private Button prevBtn, nextBtn;
+    private final WishlistDao wishlistDao = new WishlistDao();
+    private final ImageCache images = ImageCache.getInstance();
+    private final StockReservationService reservations = StockReservationService.getInstance();
+    // Products fetched per round trip; the grid asks for the next batch while scrolling
+    private final int BATCH_SIZE = 48;
     @FXML private Label pageLabel;
     @FXML private TextField searchField;
     @FXML private ChoiceBox<String> categoryChoice;
-    private List<Product> filteredProducts;
+    @FXML private ChoiceBox<ProductSort> sortChoice;
+
+    private int totalCount;
+
+    // Only the newest load may update the grid
+    private final LatestRequest pageRequest = new LatestRequest();
+    private final PauseTransition searchDebounce = new PauseTransition(Duration.millis(250));
+    private boolean firstBatchPending;
+    private int moreRequestedAt = -1;
+
+    // Filters of what the grid currently shows, for refining a longer search without a query
+    private String shownKeyword;
+    private String shownCategory;
+    private ProductSort shownSort;
 
     @FXML
     public void initialize() {
         AuthGuard.requireLogin();
-        loadProducts();
 
         // Initialize categories (you can load dynamically if you prefer)
         categoryChoice.getItems().addAll("All", "Game", "Food", "Human", "Gaming");
         categoryChoice.setValue("All");
+        sortChoice.getItems().addAll(ProductSort.values());
+        sortChoice.setValue(ProductSort.RELEVANCE);
 
-        // 🔍 LIVE SEARCH listener
-        searchField.textProperty().addListener((obs, oldVal, newVal) -> applyFilters());
+        productGrid.setCardFactory(ProductCardView::new);
+        productGrid.setOnNearEnd(this::loadMore);
 
-        // 🧩 Update results when category changes
+        // 🔍 LIVE SEARCH: wait for a pause in typing, drop the load the previous keystroke started
+        searchDebounce.setOnFinished(e -> applyFilters());
+        searchField.textProperty().addListener((obs, oldVal, newVal) -> {
+            pageRequest.cancel();
+            searchDebounce.playFromStart();
+        });
+
+        // 🧩 Update results when category or sort changes
         categoryChoice.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> applyFilters());
+        sortChoice.getSelectionModel().selectedItemProperty().addListener((obs, oldVal, newVal) -> applyFilters());
+
+        loadProducts();
     }
 
 
     @FXML
     private void applyFilters() {
-        String keyword = searchField.getText().toLowerCase().trim();
-        String category = categoryChoice.getValue();
-
-        filteredProducts = allProducts.stream()
-                .filter(p -> (category.equals("All") || p.getCategory().equalsIgnoreCase(category)))
-                .filter(p -> p.getName().toLowerCase().contains(keyword)
-                        || p.getCategory().toLowerCase().contains(keyword))
-                .toList();
-
-        currentPage = 1;
-        showPage(currentPage, filteredProducts);
+        searchDebounce.stop();
+        loadProducts();
     }
 
     @FXML
     private void onReset() {
         searchField.clear();
         categoryChoice.setValue("All");
+        sortChoice.setValue(ProductSort.RELEVANCE);
         applyFilters();
     }
     private void highlightSearch(Label label, String text, String keyword) {
-        if (keyword.isEmpty()) return;
+        if (keyword.isEmpty()) {
+            label.setStyle("-fx-font-weight: bold; -fx-font-size: 14;");
+            return;
+        }
         if (text.toLowerCase().contains(keyword.toLowerCase())) {
             label.setStyle("-fx-font-weight: bold; -fx-text-fill: #0078D7;");
         } else {
@@ -91,141 +121,281 @@ public class CustomerHomeController {
     }
 
     private void loadProducts() {
-        allProducts = productService.getAll();
-        filteredProducts = new ArrayList<>(allProducts);
-        showPage(currentPage, filteredProducts);
-    }
-
-    private void showPage(int page, List<Product> list) {
-        int start = (page - 1) * ITEMS_PER_PAGE;
-        int end = Math.min(start + ITEMS_PER_PAGE, list.size());
+        String keyword = searchField.getText();
+        String category = categoryChoice.getValue();
+        ProductSort sort = sortChoice.getValue();
+        int userId = Session.getUserId();
 
-        productGrid.getChildren().clear();
-        for (int i = start; i < end; i++) {
-            Product p = list.get(i);
-            VBox card = createProductCard(p);
-            productGrid.getChildren().add(card);
+        if (refineInMemory(keyword, category, sort)) {
+            pageRequest.cancel();
+            firstBatchPending = false;
+            return;
         }
 
-        pageLabel.setText("Page " + currentPage + " / " + Math.max(1, (int)Math.ceil(list.size() / (double)ITEMS_PER_PAGE)));
-        prevBtn.setDisable(currentPage == 1);
-        nextBtn.setDisable(end >= list.size());
+        firstBatchPending = true;
+        pageRequest.submit(() -> fetchBatch(keyword, category, sort, null, userId, productService.count(keyword, category)), batch -> {
+            firstBatchPending = false;
+            showResults(batch.cards, batch.total);
+        }, this::onLoadFailed);
     }
 
-    @FXML
-    private void onNextPage() {
-        if (currentPage * ITEMS_PER_PAGE < filteredProducts.size()) {
-            currentPage++;
-            showPage(currentPage, filteredProducts);
-        }
+    // Runs on a background thread: one batch of products plus their ratings and wishlist flags
+    private Batch fetchBatch(String keyword, String category, ProductSort sort, Product after, int userId, int total) {
+        List<Product> rows = productService.findPage(keyword, category, sort, after, BATCH_SIZE);
+        List<Integer> ids = rows.stream().map(Product::getId).toList();
+        return new Batch(productService.getCardsForPage(ids, userId), total);
     }
 
-    @FXML
-    private void onPrevPage() {
-        if (currentPage > 1) {
-            currentPage--;
-            showPage(currentPage, filteredProducts);
-        }
-    }
+    // Infinite scroll: the next keyset batch after the last product shown
+    private void loadMore() {
+        List<ProductCard> shown = productGrid.getSource();
+        if (firstBatchPending || shown.isEmpty() || shown.size() >= totalCount || shown.size() == moreRequestedAt) return;
+        moreRequestedAt = shown.size();
+
+        Product last = shown.get(shown.size() - 1).getProduct();
+        String keyword = shownKeyword;
+        String category = shownCategory;
+        ProductSort sort = shownSort;
+        int userId = Session.getUserId();
+        int total = totalCount;
 
+        pageRequest.submit(() -> fetchBatch(keyword, category, sort, last, userId, total), batch -> {
+            productGrid.addAll(batch.cards);
+            updateStatus();
+        }, this::onLoadFailed);
+    }
 
-    private VBox createProductCard(Product p) {
-        VBox card = new VBox(8);
-        card.setAlignment(Pos.CENTER);
-        card.setPadding(new Insets(10));
-        card.setStyle("-fx-background-color: white; -fx-background-radius: 8; "
-                + "-fx-border-color: #ddd; -fx-border-radius: 8; "
-                + "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 8, 0, 0, 3);");
-        card.setPrefWidth(180);
+    /*
+     * When the whole previous result is loaded and every hit of the new query is
+     * already shown (typically the query just got longer), filter the shown cards
+     * with the search index instead of querying again.
+     */
+    private boolean refineInMemory(String keyword, String category, ProductSort sort) {
+        List<ProductCard> currentCards = productGrid.getSource();
+        if (shownKeyword == null || currentCards.size() < totalCount) return false;
+        if (!Objects.equals(category, shownCategory) || sort != shownSort) return false;
+        if (keyword == null || keyword.isBlank() || !productService.isSearchReady()) return false;
+
+        Map<Integer, ProductCard> shown = new HashMap<>();
+        for (ProductCard card : currentCards) shown.put(card.getProduct().getId(), card);
+
+        Set<Integer> hits = new LinkedHashSet<>();
+        for (int id : productService.searchIds(keyword)) {
+            if (shown.containsKey(id)) {
+                hits.add(id);
+                continue;
+            }
+            // A hit that is not shown must be from another category, or the result is incomplete
+            boolean allCategories = category == null || category.isEmpty() || "All".equalsIgnoreCase(category);
+            if (allCategories || !productService.peekCategory(id).map(c -> !c.equalsIgnoreCase(category)).orElse(false)) {
+                return false;
+            }
+        }
 
-        // 🖼️ Product image
-        ImageView imageView = new ImageView();
-        if (p.getImagePath() != null && !p.getImagePath().isEmpty()) {
-            imageView.setImage(new Image("file:" + p.getImagePath(), 120, 120, true, true));
+        List<ProductCard> cards = new ArrayList<>();
+        if (sort == ProductSort.RELEVANCE) {
+            for (int id : hits) cards.add(shown.get(id));
         } else {
-            imageView.setImage(new Image(getClass().getResource("/com/example/finalproject/view/default.png").toExternalForm()));
+            for (ProductCard card : currentCards) {
+                if (hits.contains(card.getProduct().getId())) cards.add(card);
+            }
         }
-        imageView.setFitWidth(120);
-        imageView.setFitHeight(120);
-        imageView.setPreserveRatio(true);
+        showResults(cards, cards.size());
+        return true;
+    }
 
-        // 🏷️ Labels
-        Label nameLabel = new Label(p.getName());
-        nameLabel.setStyle("-fx-font-weight: bold; -fx-font-size: 14;");
-        highlightSearch(nameLabel, p.getName(), searchField.getText());
+    private void showResults(List<ProductCard> cards, int total) {
+        totalCount = total;
+        moreRequestedAt = -1;
+        shownKeyword = searchField.getText();
+        shownCategory = categoryChoice.getValue();
+        shownSort = sortChoice.getValue();
+
+        productGrid.setAll(cards);
+        productGrid.setVisible(!cards.isEmpty());
+        productGrid.setManaged(!cards.isEmpty());
+        emptyState.setVisible(cards.isEmpty());
+        emptyState.setManaged(cards.isEmpty());
+        updateStatus();
+    }
 
-        Label categoryLabel = new Label(p.getCategory());
-        categoryLabel.setStyle("-fx-text-fill: #666; -fx-font-size: 12;");
+    private void updateStatus() {
+        pageLabel.setText("Showing " + productGrid.getSourceSize() + " of " + totalCount + " products");
+    }
 
-        // 💸 Price & Discount
-        double originalPrice = p.getPrice();
-        double discount = p.getDiscount();
-        double finalPrice = originalPrice * (1 - discount / 100.0);
+    private void onLoadFailed(Throwable t) {
+        firstBatchPending = false;
+        // Let the next scroll to the end try the same batch again
+        moreRequestedAt = -1;
+        t.printStackTrace();
+        showAlert("Error", "Failed to load products: " + t.getMessage());
+    }
 
-        Label priceLabel = new Label("$" + String.format("%.2f", finalPrice));
-        priceLabel.setStyle("-fx-text-fill: #0078D7; -fx-font-weight: bold; -fx-font-size: 14;");
+    // Reloads one card, e.g. its rating after a new review
+    private void refreshCard(ProductCard data) {
+        int userId = Session.getUserId();
+        FxAsync.load(() -> productService.getCardsForPage(List.of(data.getProduct().getId()), userId), cards -> {
+            if (!cards.isEmpty()) productGrid.replace(data, cards.get(0));
+        });
+    }
 
-        VBox priceBox = new VBox(2);
-        priceBox.setAlignment(Pos.CENTER);
 
-        if (discount > 0) {
-            Label oldPrice = new Label("$" + String.format("%.2f", originalPrice));
+    /** One product card of the grid; built once and re-bound to other products as rows scroll. */
+    private class ProductCardView implements VirtualGrid.Card<ProductCard> {
+        private final VBox card = new VBox(8);
+        private final ImageView imageView = new ImageView();
+        private final Label nameLabel = new Label();
+        private final Label categoryLabel = new Label();
+        private final Label priceLabel = new Label();
+        private final Label oldPrice = new Label();
+        private final Label discountLabel = new Label();
+        private final VBox priceBox = new VBox(2);
+        private final Label stockLabel = new Label();
+        private final Label ratingLabel = new Label();
+        private final Button addBtn = new Button("Add to Cart");
+        private final Button wishlistBtn = new Button();
+        private final Button reviewBtn = new Button("Leave Review");
+        private final Button viewReviewsBtn = new Button("View Reviews");
+
+        private ProductCard data;
+
+        ProductCardView() {
+            card.setAlignment(Pos.CENTER);
+            card.setPadding(new Insets(10));
+            card.setStyle("-fx-background-color: white; -fx-background-radius: 8; "
+                    + "-fx-border-color: #ddd; -fx-border-radius: 8; "
+                    + "-fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 8, 0, 0, 3);");
+            card.setPrefWidth(180);
+
+            // 🖼️ Product image
+            imageView.setFitWidth(120);
+            imageView.setFitHeight(120);
+            imageView.setPreserveRatio(true);
+
+            // 🏷️ Labels
+            categoryLabel.setStyle("-fx-text-fill: #666; -fx-font-size: 12;");
+
+            // 💸 Price & Discount
+            priceLabel.setStyle("-fx-text-fill: #0078D7; -fx-font-weight: bold; -fx-font-size: 14;");
             oldPrice.setStyle("-fx-text-fill: gray; -fx-font-size: 11; -fx-strikethrough: true;");
-
-            Label discountLabel = new Label("-" + (int) discount + "%");
             discountLabel.setStyle("-fx-background-color: red; -fx-text-fill: white; "
                     + "-fx-padding: 2 6 2 6; -fx-background-radius: 8; -fx-font-size: 11;");
+            priceBox.setAlignment(Pos.CENTER);
+
+            // 📦 Stock
+            stockLabel.setStyle("-fx-font-size: 12; -fx-text-fill: gray;");
+
+            // ⭐ Rating
+            ratingLabel.setStyle("-fx-text-fill: #f5b301; -fx-font-weight:bold;");
+
+            addBtn.setOnAction(e -> onAddToCart());
+            wishlistBtn.setOnAction(e -> onToggleWishlist());
+            reviewBtn.setOnAction(e -> onLeaveReview());
+            viewReviewsBtn.setOnAction(e -> onViewReviews());
+
+            // 🧱 Final Layout
+            card.getChildren().addAll(
+                    imageView,
+                    nameLabel,
+                    categoryLabel,
+                    priceBox,
+                    ratingLabel,
+                    stockLabel,
+                    addBtn,
+                    wishlistBtn,   // ❤️ Added here
+                    reviewBtn,
+                    viewReviewsBtn
+            );
+        }
 
-            priceBox.getChildren().addAll(priceLabel, oldPrice, discountLabel);
-        } else {
-            priceBox.getChildren().add(priceLabel);
+        @Override
+        public Node getNode() {
+            return card;
         }
 
-        // 📦 Stock
-        Label stockLabel = new Label("Stock: " + p.getStock());
-        stockLabel.setStyle("-fx-font-size: 12; -fx-text-fill: gray;");
+        @Override
+        public void update(ProductCard data) {
+            this.data = data;
+            Product p = data.getProduct();
+
+            // Placeholder first, decoded image swapped in from the shared cache
+            images.load(imageView, p.getImagePath(), 120);
 
-        // ⭐ Rating
-        Label ratingLabel = new Label("⭐ " + String.format("%.1f", new ReviewService().getAverageRating(p.getId())));
-        ratingLabel.setStyle("-fx-text-fill: #f5b301; -fx-font-weight:bold;");
+            nameLabel.setText(p.getName());
+            highlightSearch(nameLabel, p.getName(), searchField.getText());
+            categoryLabel.setText(p.getCategory());
+
+            double discount = p.getDiscount();
+            priceLabel.setText("$" + String.format("%.2f", finalPrice(p)));
+            if (discount > 0) {
+                oldPrice.setText("$" + String.format("%.2f", p.getPrice()));
+                discountLabel.setText("-" + (int) discount + "%");
+                priceBox.getChildren().setAll(priceLabel, oldPrice, discountLabel);
+            } else {
+                priceBox.getChildren().setAll(priceLabel);
+            }
+
+            stockLabel.setText("Stock: " + p.getStock());
+            ratingLabel.setText("⭐ " + String.format("%.1f", data.getAverageRating()) + " (" + data.getReviewCount() + ")");
+            wishlistBtn.setText(data.isInWishlist() ? "❤️ Remove from Wishlist" : "🤍 Add to Wishlist");
+        }
+
+        private double finalPrice(Product p) {
+            return p.getPrice() * (1 - p.getDiscount() / 100.0);
+        }
 
         // 🛒 Add to Cart
-        Button addBtn = new Button("Add to Cart");
-        addBtn.setOnAction(e -> {
+        private void onAddToCart() {
+            Product p = data.getProduct();
             if (p.getStock() <= 0) {
                 showAlert("❌ Out of Stock", p.getName() + " is currently unavailable.");
                 return;
             }
 
-            cartService.addItem(p);
-            ShoppingCart.addItem(p.getId(), finalPrice);
-
-            productDao.decreaseStock(p.getId(), 1);
-            p.setStock(p.getStock() - 1);
-            stockLabel.setText("Stock: " + p.getStock());
-
-            showAlert("🛒 Added to Cart", p.getName() + " added to your cart!");
-        });
+            // Hold one unit for this cart; fails instead of overselling when someone else got it first
+            int userId = Session.getUserId();
+            addBtn.setDisable(true);
+            FxAsync.load(() -> {
+                boolean ok = reservations.reserve(userId, p.getId(), 1);
+                if (ok) cartService.addItem(userId, p);
+                return ok;
+            }, reserved -> {
+                addBtn.setDisable(false);
+                if (!reserved) {
+                    p.setStock(0);
+                    stockLabel.setText("Stock: 0");
+                    showAlert("❌ Out of Stock", p.getName() + " is currently unavailable.");
+                    return;
+                }
+                p.setStock(p.getStock() - 1);
+                stockLabel.setText("Stock: " + p.getStock());
+
+                showAlert("🛒 Added to Cart", p.getName() + " added to your cart!");
+            }, e -> {
+                addBtn.setDisable(false);
+                e.printStackTrace();
+                showAlert("Error", "Could not add to cart: " + e.getMessage());
+            });
+        }
 
         // ❤️ Wishlist button
-        WishlistDao wishlistDao = new WishlistDao();
-        int userId = Session.getUserId();
-        boolean inWishlist = wishlistDao.isInWishlist(userId, p.getId());
-
-        Button wishlistBtn = new Button(inWishlist ? "❤️ Remove from Wishlist" : "🤍 Add to Wishlist");
-        wishlistBtn.setOnAction(e -> {
-            if (wishlistDao.isInWishlist(userId, p.getId())) {
-                wishlistDao.removeFromWishlist(userId, p.getId());
+        private void onToggleWishlist() {
+            int userId = Session.getUserId();
+            int productId = data.getProduct().getId();
+            if (data.isInWishlist()) {
+                FxAsync.run(() -> wishlistDao.removeFromWishlist(userId, productId));
                 wishlistBtn.setText("🤍 Add to Wishlist");
             } else {
-                wishlistDao.addToWishlist(userId, p.getId());
+                FxAsync.run(() -> wishlistDao.addToWishlist(userId, productId));
                 wishlistBtn.setText("❤️ Remove from Wishlist");
             }
-        });
+            data.setInWishlist(!data.isInWishlist());
+        }
 
         // ✍ Leave Review
-        Button reviewBtn = new Button("Leave Review");
-        reviewBtn.setOnAction(e -> {
+        private void onLeaveReview() {
+            ProductCard reviewed = data;
+            Product p = reviewed.getProduct();
             try {
                 FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/example/finalproject/view/review_popup.fxml"));
                 VBox root = loader.load();
@@ -240,16 +410,16 @@ public class CustomerHomeController {
                 stage.setResizable(false);
                 stage.showAndWait();
 
-                loadProducts();
+                refreshCard(reviewed);
             } catch (Exception ex) {
                 ex.printStackTrace();
                 showAlert("Error", "Failed to open review popup: " + ex.getMessage());
             }
-        });
+        }
 
         // 👀 View Reviews
-        Button viewReviewsBtn = new Button("View Reviews");
-        viewReviewsBtn.setOnAction(e -> {
+        private void onViewReviews() {
+            Product p = data.getProduct();
             try {
                 FXMLLoader loader = new FXMLLoader(getClass().getResource("/com/example/finalproject/view/product_reviews.fxml"));
                 VBox root = loader.load();
@@ -266,23 +436,7 @@ public class CustomerHomeController {
             } catch (Exception ex) {
                 ex.printStackTrace();
             }
-        });
-
-        // 🧱 Final Layout
-        card.getChildren().addAll(
-                imageView,
-                nameLabel,
-                categoryLabel,
-                priceBox,
-                ratingLabel,
-                stockLabel,
-                addBtn,
-                wishlistBtn,   // ❤️ Added here
-                reviewBtn,
-                viewReviewsBtn
-        );
-
-        return card;
+        }
     }
 
 
@@ -320,4 +474,14 @@ public class CustomerHomeController {
     private void onViewCart() {
         HelloApplication.setRoot("view/cart.fxml");
     }
+
+    private static final class Batch {
+        final List<ProductCard> cards;
+        final int total;
+
+        Batch(List<ProductCard> cards, int total) {
+            this.cards = cards;
+            this.total = total;
+        }
+    }
 }
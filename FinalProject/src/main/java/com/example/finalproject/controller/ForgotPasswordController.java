@@ -1,7 +1,9 @@
 package com.example.finalproject.controller;
 
 import com.example.finalproject.dao.UserDao;
+import com.example.finalproject.service.AuthService;
 import com.example.finalproject.util.EmailSender;
+import com.example.finalproject.util.FxAsync;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 import java.util.Random;
@@ -13,6 +15,8 @@ public class ForgotPasswordController {
     @FXML private PasswordField newPasswordField;
     @FXML private Label messageLabel;
 
+    private final AuthService authService = new AuthService();
+
     private String generatedOtp;
     private String targetEmail;
 
@@ -52,7 +56,10 @@ public class ForgotPasswordController {
             return;
         }
 
-        new UserDao().updatePassword(targetEmail, newPass);
-        messageLabel.setText("Password reset successfully!");
+        String email = targetEmail;
+        FxAsync.load(() -> {
+            authService.resetPassword(email, newPass);
+            return null;
+        }, v -> messageLabel.setText("Password reset successfully!"), e -> messageLabel.setText(e.getMessage()));
     }
 }
@@ -1,9 +1,10 @@
 package com.example.finalproject.controller;
 
 import com.example.finalproject.HelloApplication;
-import com.example.finalproject.security.JwtService;
 import com.example.finalproject.security.Session;
 import com.example.finalproject.service.AuthService;
+import com.example.finalproject.service.CartService;
+import com.example.finalproject.util.FxAsync;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
 
@@ -16,19 +17,23 @@ public class LoginController {
 
     @FXML
     public void onLogin() {
-        try {
-            String token = authService.login(emailField.getText().trim(), passwordField.getText().trim());
+        String email = emailField.getText().trim();
+        String password = passwordField.getText().trim();
+        // BCrypt runs on the password pool, not on the FX thread
+        FxAsync.load(() -> authService.login(email, password), token -> {
             Session.setToken(token);
-            String role = JwtService.getRole(token);
+            String role = Session.getUserRole();
 
 
             if ("ADMIN".equals(role))
                 HelloApplication.setRoot("view/admin_products.fxml");
-            else
+            else {
+                // Bring back the cart saved in an earlier session
+                int userId = Session.getUserId();
+                FxAsync.run(() -> CartService.getInstance().restore(userId));
                 HelloApplication.setRoot("view/customer_home.fxml");
-        } catch (Exception e) {
-            msgLabel.setText(e.getMessage());
-        }
+            }
+        }, e -> msgLabel.setText(e.getMessage()));
     }
 
     @FXML
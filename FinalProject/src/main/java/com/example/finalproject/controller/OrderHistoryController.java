@@ -4,8 +4,8 @@ import com.example.finalproject.HelloApplication;
 import com.example.finalproject.dao.OrderDao;
 import com.example.finalproject.model.Order;
 import com.example.finalproject.security.AuthGuard;
-import com.example.finalproject.security.JwtService;
 import com.example.finalproject.security.Session;
+import com.example.finalproject.util.FxAsync;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -38,16 +38,18 @@ public class OrderHistoryController {
     }
 
     private void loadOrders() {
-        int userId = JwtService.getUserId(Session.getToken());
-        List<Order> allOrders = orderDao.findAll();
+        int userId = Session.getUserId();
+        FxAsync.load(() -> {
+            List<Order> allOrders = orderDao.findAll();
 
-        // Filter only this user's orders
-        List<Order> userOrders = allOrders.stream()
-                .filter(o -> o.getUserId() == userId)
-                .collect(Collectors.toList());
-
-        ObservableList<Order> orders = FXCollections.observableArrayList(userOrders);
-        orderTable.setItems(orders);
+            // Filter only this user's orders
+            return allOrders.stream()
+                    .filter(o -> o.getUserId() == userId)
+                    .collect(Collectors.toList());
+        }, userOrders -> {
+            ObservableList<Order> orders = FXCollections.observableArrayList(userOrders);
+            orderTable.setItems(orders);
+        });
     }
 
     @FXML
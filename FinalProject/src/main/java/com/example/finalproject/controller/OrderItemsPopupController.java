@@ -39,7 +39,7 @@ public class OrderItemsPopupController {
         double total = 0.0;
         String status = "";
 
-        try (Connection conn = DBConnection.getInstance()) {
+        try (Connection conn = DBConnection.getConnection()) {
             // 🧾 Get order details
             PreparedStatement psOrder = conn.prepareStatement("SELECT total, status FROM orders WHERE id=?");
             psOrder.setInt(1, orderId);
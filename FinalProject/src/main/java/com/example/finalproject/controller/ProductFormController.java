@@ -1,18 +1,17 @@
 package com.example.finalproject.controller;
 
 import com.example.finalproject.model.Product;
+import com.example.finalproject.service.ImageCache;
 import com.example.finalproject.service.ProductService;
+import com.example.finalproject.service.ThumbnailService;
+import com.example.finalproject.util.FxAsync;
 import javafx.fxml.FXML;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 
 public class ProductFormController {
 
@@ -41,7 +40,7 @@ public class ProductFormController {
             selectedImagePath = product.getImagePath();
 
             if (selectedImagePath != null && !selectedImagePath.isEmpty()) {
-                imageView.setImage(new Image("file:" + selectedImagePath));
+                ImageCache.getInstance().load(imageView, selectedImagePath, 150);
             }
         } else {
             formTitle.setText("Add Product");
@@ -63,22 +62,13 @@ public class ProductFormController {
 
         File file = fileChooser.showOpenDialog(null);
         if (file != null) {
-            try {
-                // Ensure uploads directory exists
-                File uploadsDir = new File("uploads");
-                if (!uploadsDir.exists()) uploadsDir.mkdirs();
-
-                // Copy image to uploads folder
-                Path destination = Path.of("uploads", file.getName());
-                Files.copy(file.toPath(), destination, StandardCopyOption.REPLACE_EXISTING);
-
-                selectedImagePath = destination.toAbsolutePath().toString();
-                imageView.setImage(new Image("file:" + selectedImagePath));
+            // Copy into uploads under its content hash and render the thumbnails, off the FX thread
+            msgLabel.setText("⏳ Processing image...");
+            FxAsync.load(() -> ThumbnailService.getInstance().ingest(file.toPath()), storedPath -> {
+                selectedImagePath = storedPath;
+                ImageCache.getInstance().load(imageView, selectedImagePath, 150);
                 msgLabel.setText("✅ Image selected!");
-
-            } catch (Exception e) {
-                msgLabel.setText("❌ Error copying image: " + e.getMessage());
-            }
+            }, e -> msgLabel.setText("❌ Error copying image: " + e.getMessage()));
         }
     }
 
@@ -98,17 +88,23 @@ public class ProductFormController {
                 msgLabel.setStyle("-fx-text-fill: green;");
                 msgLabel.setText("✅ Product added!");
             } else {
-                currentProduct.setName(name);
-                currentProduct.setCategory(category);
-                currentProduct.setDescription(desc);
-                currentProduct.setPrice(price);
-                currentProduct.setStock(stock);
-                currentProduct.setImagePath(selectedImagePath);
-                productService.update(currentProduct);
+                // Edit a copy so a failed save leaves the shown product untouched
+                Product edited = new Product(currentProduct);
+                edited.setName(name);
+                edited.setCategory(category);
+                edited.setDescription(desc);
+                edited.setPrice(price);
+                edited.setStock(stock);
+                edited.setImagePath(selectedImagePath);
+                productService.update(edited);
                 msgLabel.setStyle("-fx-text-fill: green;");
                 msgLabel.setText("✅ Product updated!");
             }
 
+            // Images saved before thumbnails existed get them now
+            String imagePath = selectedImagePath;
+            FxAsync.run(() -> ThumbnailService.getInstance().ensureThumbnails(imagePath));
+
             if (onSaveCallback != null) onSaveCallback.run();
 
             ((Stage) nameField.getScene().getWindow()).close();
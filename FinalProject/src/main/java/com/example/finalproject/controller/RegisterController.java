@@ -3,6 +3,7 @@ package com.example.finalproject.controller;
 import com.example.finalproject.HelloApplication;
 import com.example.finalproject.security.Session;
 import com.example.finalproject.service.AuthService;
+import com.example.finalproject.util.FxAsync;
 import javafx.fxml.FXML;
 import javafx.scene.control.Label;
 import javafx.scene.control.PasswordField;
@@ -48,20 +49,17 @@ public class RegisterController {
             return;
         }
 
-        try {
-            // ✅ Call AuthService (it throws if email already exists)
-            String token = authService.register(name, email, password, address);
-
+        // ✅ Call AuthService (it throws if email already exists); hashing runs in the background
+        FxAsync.load(() -> authService.register(name, email, password, address), token -> {
             msgLabel.setStyle("-fx-text-fill: green;");
             msgLabel.setText("Registration successful! Redirecting...");
 
             Session.setToken(token);
             HelloApplication.setRoot("view/customer_home.fxml");
-
-        } catch (Exception e) {
+        }, e -> {
             msgLabel.setStyle("-fx-text-fill: red;");
             msgLabel.setText(e.getMessage());
-        }
+        });
     }
 
     @FXML
@@ -2,7 +2,6 @@ package com.example.finalproject.controller;
 
 import com.example.finalproject.model.Review;
 import com.example.finalproject.security.AuthGuard;
-import com.example.finalproject.security.JwtService;
 import com.example.finalproject.security.Session;
 import com.example.finalproject.service.ReviewService;
 import javafx.fxml.FXML;
@@ -34,7 +33,7 @@ public class ReviewPopupController {
         try {
             int rating = ratingChoice.getValue();
             String comment = commentField.getText();
-            int userId = JwtService.getUserId(Session.getToken());
+            int userId = Session.getUserId();
 
             Review r = new Review(0, productId, userId, rating, comment, null);
             service.addReview(r);
@@ -5,51 +5,89 @@ import com.example.finalproject.dao.WishlistDao;
 import com.example.finalproject.model.Product;
 import com.example.finalproject.security.AuthGuard;
 import com.example.finalproject.security.Session;
+import com.example.finalproject.service.ImageCache;
+import com.example.finalproject.service.ProductService;
+import com.example.finalproject.util.FxAsync;
+import com.example.finalproject.util.LatestRequest;
+import com.example.finalproject.util.VirtualGrid;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
 import javafx.scene.control.Button;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
-import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.control.Label;
 
 import java.util.List;
 
 public class WishlistController {
-    @FXML private FlowPane wishlistGrid;
+    @FXML private VirtualGrid<Product> wishlistGrid;
+    @FXML private VBox emptyState;
     private final WishlistDao dao = new WishlistDao();
+    private final ProductService productService = new ProductService();
+    private final LatestRequest loadRequest = new LatestRequest();
 
     @FXML
     public void initialize() {
         AuthGuard.requireLogin();
+        wishlistGrid.setCardFactory(WishlistCardView::new);
         loadWishlist();
     }
 
     private void loadWishlist() {
-        wishlistGrid.getChildren().clear();
-        List<Product> products = dao.getUserWishlist(Session.getUserId());
+        int userId = Session.getUserId();
+        loadRequest.submit(() -> productService.getByIds(dao.getWishlistProductIds(userId)), this::showWishlist);
+    }
+
+    private void showWishlist(List<Product> products) {
+        wishlistGrid.setAll(products);
+        updateEmptyState();
+    }
+
+    private void updateEmptyState() {
+        boolean empty = wishlistGrid.getSourceSize() == 0;
+        wishlistGrid.setVisible(!empty);
+        wishlistGrid.setManaged(!empty);
+        emptyState.setVisible(empty);
+        emptyState.setManaged(empty);
+    }
+
+    /** Reusable wishlist card, re-bound to another product as rows scroll. */
+    private class WishlistCardView implements VirtualGrid.Card<Product> {
+        private final VBox card = new VBox(8);
+        private final ImageView image = new ImageView();
+        private final Label name = new Label();
+        private final Label price = new Label();
+        private final Button remove = new Button("🗑 Remove");
+        private Product product;
 
-        for (Product p : products) {
-            VBox card = new VBox(8);
+        WishlistCardView() {
             card.setAlignment(Pos.CENTER);
             card.setPadding(new Insets(10));
             card.setStyle("-fx-background-color:white; -fx-border-color:#ddd; -fx-background-radius:8;");
             card.setPrefWidth(180);
-
-            ImageView image = new ImageView(new Image("file:" + p.getImagePath(), 100, 100, true, true));
-            Label name = new Label(p.getName());
             name.setStyle("-fx-font-weight:bold;");
-            Label price = new Label("$" + p.getPrice());
-            Button remove = new Button("🗑 Remove");
             remove.setOnAction(e -> {
-                dao.removeFromWishlist(Session.getUserId(), p.getId());
-                loadWishlist();
+                Product p = product;
+                wishlistGrid.remove(p);
+                updateEmptyState();
+                FxAsync.run(() -> dao.removeFromWishlist(Session.getUserId(), p.getId()));
             });
-
             card.getChildren().addAll(image, name, price, remove);
-            wishlistGrid.getChildren().add(card);
+        }
+
+        @Override
+        public Node getNode() {
+            return card;
+        }
+
+        @Override
+        public void update(Product p) {
+            product = p;
+            ImageCache.getInstance().load(image, p.getImagePath(), 100);
+            name.setText(p.getName());
+            price.setText("$" + p.getPrice());
         }
     }
 
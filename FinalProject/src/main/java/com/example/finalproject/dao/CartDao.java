@@ -0,0 +1,73 @@
+package com.example.finalproject.dao;
+
+import java.sql.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+public class CartDao {
+
+    /** productId -> quantity of the user's saved cart, in the order the lines were added. */
+    public Map<Integer, Integer> loadCart(int userId) {
+        Map<Integer, Integer> lines = new LinkedHashMap<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT product_id, quantity FROM cart_items WHERE user_id = ? ORDER BY added_at, product_id")) {
+            ps.setInt(1, userId);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) lines.put(rs.getInt("product_id"), rs.getInt("quantity"));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return lines;
+    }
+
+    /**
+     * Writes a batch of coalesced cart changes in one transaction: the saved carts of
+     * clearedUsers are dropped first, then each user -> product -> quantity is upserted
+     * (quantity 0 deletes the line).
+     */
+    public void writeBatch(Set<Integer> clearedUsers, Map<Integer, Map<Integer, Integer>> lines) throws SQLException {
+        if (clearedUsers.isEmpty() && lines.isEmpty()) return;
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement clear = conn.prepareStatement("DELETE FROM cart_items WHERE user_id = ?");
+                 PreparedStatement upsert = conn.prepareStatement(
+                         "INSERT INTO cart_items(user_id,product_id,quantity) VALUES(?,?,?) " +
+                         "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity)");
+                 PreparedStatement delete = conn.prepareStatement(
+                         "DELETE FROM cart_items WHERE user_id = ? AND product_id = ?")) {
+                for (int userId : clearedUsers) {
+                    clear.setInt(1, userId);
+                    clear.addBatch();
+                }
+                boolean upserts = false, deletes = false;
+                for (Map.Entry<Integer, Map<Integer, Integer>> user : lines.entrySet()) {
+                    for (Map.Entry<Integer, Integer> line : user.getValue().entrySet()) {
+                        if (line.getValue() > 0) {
+                            upsert.setInt(1, user.getKey());
+                            upsert.setInt(2, line.getKey());
+                            upsert.setInt(3, line.getValue());
+                            upsert.addBatch();
+                            upserts = true;
+                        } else {
+                            delete.setInt(1, user.getKey());
+                            delete.setInt(2, line.getKey());
+                            delete.addBatch();
+                            deletes = true;
+                        }
+                    }
+                }
+                if (!clearedUsers.isEmpty()) clear.executeBatch();
+                if (deletes) delete.executeBatch();
+                if (upserts) upsert.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.example.finalproject.dao;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+/**
+ * Bounded JDBC connection pool.
+ * Connections handed out by {@link #getConnection()} go back to the pool when closed,
+ * so DAOs keep using plain try-with-resources. Each physical connection keeps an LRU
+ * cache of its prepared statements (see {@link StatementCache}).
+ */
+public class ConnectionPool implements DataSource {
+
+    // Connections used within this window are trusted without a validation round trip
+    private static final long VALIDATION_BYPASS_MS = 500;
+    private static final int VALIDATION_TIMEOUT_SEC = 2;
+    private static final long HOUSEKEEPING_PERIOD_MS = 30_000;
+
+    private final String url;
+    private final Properties info;
+    private final int minIdle;
+    private final int maxSize;
+    private final long borrowTimeoutMs;
+    private final long idleTimeoutMs;
+    private final long leakThresholdMs;
+    private final int statementCacheSize;
+
+    private final LongAdder statementHits = new LongAdder();
+    private final LongAdder statementMisses = new LongAdder();
+    private final Semaphore permits;
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger total = new AtomicInteger();
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, Properties info,
+                          int minIdle, int maxSize,
+                          long borrowTimeoutMs, long idleTimeoutMs, long leakThresholdMs,
+                          int statementCacheSize) {
+        if (maxSize <= 0 || minIdle < 0 || minIdle > maxSize)
+            throw new IllegalArgumentException("Invalid pool size: min=" + minIdle + ", max=" + maxSize);
+        this.url = url;
+        this.info = info;
+        this.minIdle = minIdle;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 0, HOUSEKEEPING_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) throw new SQLException("Connection pool is closed");
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMs);
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS))
+                throw new SQLTimeoutException("Timed out after " + borrowTimeoutMs + "ms waiting for a database connection "
+                        + "(active=" + borrowed.size() + ", max=" + maxSize + ")");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+
+        try {
+            PooledConnection pc = take(deadline);
+            pc.borrowedAt = System.currentTimeMillis();
+            pc.borrowSite = leakThresholdMs > 0 ? new Exception("Connection borrowed here") : null;
+            pc.leakReported = false;
+            borrowed.add(pc);
+            return pc.newHandle();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Pool connections use the configured credentials");
+    }
+
+    /** Closes idle connections and stops housekeeping; borrowed connections are closed when returned. */
+    public void shutdown() {
+        closed = true;
+        housekeeper.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) discard(pc);
+    }
+
+    public int getActiveCount() { return borrowed.size(); }
+    public int getIdleCount() { return idle.size(); }
+    public int getTotalCount() { return total.get(); }
+    public long getStatementCacheHits() { return statementHits.sum(); }
+    public long getStatementCacheMisses() { return statementMisses.sum(); }
+
+    public double getStatementCacheHitRate() {
+        long hits = statementHits.sum();
+        long lookups = hits + statementMisses.sum();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ConnectionPool[active=%d, idle=%d, total=%d, stmtCache hits=%d misses=%d (%.0f%%)]",
+                getActiveCount(), getIdleCount(), getTotalCount(),
+                getStatementCacheHits(), getStatementCacheMisses(), getStatementCacheHitRate() * 100);
+    }
+
+    private PooledConnection take(long deadline) throws SQLException {
+        while (true) {
+            PooledConnection pc = idle.pollFirst();
+            if (pc != null) {
+                if (isAlive(pc)) return pc;
+                discard(pc);
+                continue;
+            }
+            if (reserveSlot()) return open();
+
+            // Every slot is taken by a connection that is on its way back to the idle queue
+            long remaining = deadline - System.nanoTime();
+            try {
+                pc = remaining > 0 ? idle.pollFirst(remaining, TimeUnit.NANOSECONDS) : null;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SQLException("Interrupted while waiting for a database connection", e);
+            }
+            if (pc == null) throw new SQLTimeoutException("Timed out waiting for a database connection");
+            if (isAlive(pc)) return pc;
+            discard(pc);
+        }
+    }
+
+    private boolean reserveSlot() {
+        while (true) {
+            int n = total.get();
+            if (n >= maxSize) return false;
+            if (total.compareAndSet(n, n + 1)) return true;
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        try {
+            return new PooledConnection(DriverManager.getConnection(url, info));
+        } catch (SQLException | RuntimeException e) {
+            total.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private boolean isAlive(PooledConnection pc) {
+        try {
+            if (pc.raw.isClosed()) return false;
+            if (System.currentTimeMillis() - pc.lastUsedAt < VALIDATION_BYPASS_MS) return true;
+            return pc.raw.isValid(VALIDATION_TIMEOUT_SEC);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void release(PooledConnection pc) {
+        borrowed.remove(pc);
+        pc.borrowSite = null;
+        boolean reusable = !closed && reset(pc);
+        if (reusable) {
+            pc.lastUsedAt = System.currentTimeMillis();
+            idle.offerFirst(pc);
+        } else {
+            discard(pc);
+        }
+        permits.release();
+    }
+
+    private boolean reset(PooledConnection pc) {
+        try {
+            if (pc.raw.isClosed()) return false;
+            if (!pc.raw.getAutoCommit()) {
+                pc.raw.rollback();
+                pc.raw.setAutoCommit(true);
+            }
+            pc.raw.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(PooledConnection pc) {
+        total.decrementAndGet();
+        try {
+            pc.raw.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+
+        // Evict connections idle for too long, keeping at least minIdle around
+        if (idleTimeoutMs > 0) {
+            for (PooledConnection pc : idle) {
+                if (idle.size() <= minIdle) break;
+                if (now - pc.lastUsedAt > idleTimeoutMs && idle.remove(pc)) discard(pc);
+            }
+        }
+
+        // Top the pool back up to minIdle
+        while (!closed && idle.size() < minIdle && reserveSlot()) {
+            try {
+                PooledConnection pc = open();
+                pc.lastUsedAt = System.currentTimeMillis();
+                idle.offerLast(pc);
+            } catch (SQLException e) {
+                break;
+            }
+        }
+
+        // Report connections held longer than the leak threshold
+        if (leakThresholdMs > 0) {
+            for (PooledConnection pc : borrowed) {
+                Exception site = pc.borrowSite;
+                if (!pc.leakReported && site != null && now - pc.borrowedAt > leakThresholdMs) {
+                    pc.leakReported = true;
+                    System.err.println("⚠ Possible connection leak: held for " + (now - pc.borrowedAt) + "ms");
+                    site.printStackTrace();
+                }
+            }
+        }
+    }
+
+    // --- DataSource boilerplate ---
+    @Override public PrintWriter getLogWriter() { return DriverManager.getLogWriter(); }
+    @Override public void setLogWriter(PrintWriter out) { DriverManager.setLogWriter(out); }
+    @Override public void setLoginTimeout(int seconds) { DriverManager.setLoginTimeout(seconds); }
+    @Override public int getLoginTimeout() { return DriverManager.getLoginTimeout(); }
+    @Override public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> iface) throws SQLException {
+        if (iface.isInstance(this)) return iface.cast(this);
+        throw new SQLException("Not a wrapper for " + iface.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> iface) {
+        return iface.isInstance(this);
+    }
+
+    /** A physical connection owned by the pool. */
+    final class PooledConnection {
+        final Connection raw;
+        volatile long lastUsedAt = System.currentTimeMillis();
+        volatile long borrowedAt;
+        volatile Exception borrowSite;
+        volatile boolean leakReported;
+        final StatementCache statements;
+
+        PooledConnection(Connection raw) {
+            this.raw = raw;
+            this.statements = statementCacheSize > 0
+                    ? new StatementCache(raw, statementCacheSize, statementHits, statementMisses)
+                    : null;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    ConnectionPool.class.getClassLoader(),
+                    new Class<?>[]{Connection.class},
+                    new Handle(this));
+        }
+    }
+
+    /** One borrow of a pooled connection; close() hands it back instead of closing the socket. */
+    private final class Handle implements InvocationHandler {
+        private volatile PooledConnection pc;
+        private final List<Statement> statements = new ArrayList<>();
+
+        Handle(PooledConnection pc) {
+            this.pc = pc;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    PooledConnection owned;
+                    synchronized (this) {
+                        owned = pc;
+                        pc = null;
+                    }
+                    if (owned != null) {
+                        if (owned.statements != null) owned.statements.checkinAll();
+                        closeStatements();
+                        release(owned);
+                    }
+                    return null;
+                }
+                case "isClosed" -> {
+                    PooledConnection current = pc;
+                    return current == null || current.raw.isClosed();
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    PooledConnection current = pc;
+                    return "PooledConnection[" + (current == null ? "closed" : current.raw) + "]";
+                }
+            }
+
+            PooledConnection current = pc;
+            if (current == null) throw new SQLException("Connection has already been returned to the pool");
+            if (current.statements != null && StatementCache.isCacheable(method, args)) {
+                PreparedStatement cached = current.statements.checkout((Connection) proxy, args);
+                if (cached != null) return cached;
+            }
+            Object result;
+            try {
+                result = method.invoke(current.raw, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof Statement st) {
+                synchronized (statements) {
+                    statements.add(st);
+                }
+            }
+            return result;
+        }
+
+        // DAOs don't always close their statements; make sure none outlive the borrow
+        private void closeStatements() {
+            synchronized (statements) {
+                for (Statement st : statements) {
+                    try {
+                        st.close();
+                    } catch (SQLException ignored) {
+                    }
+                }
+                statements.clear();
+            }
+        }
+    }
+}
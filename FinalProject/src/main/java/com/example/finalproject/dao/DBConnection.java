@@ -1,27 +1,62 @@
 package com.example.finalproject.dao;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
 
 public class DBConnection {
-    private static Connection instance;
+    private static volatile ConnectionPool pool;
 
     private DBConnection() {}
 
-    public static Connection getInstance() throws SQLException {
-        if (instance == null || instance.isClosed()) {
-            try {
-                Class.forName("com.mysql.cj.jdbc.Driver");
-                instance = DriverManager.getConnection(
-                        "jdbc:mysql://localhost:3306/pr",
-                        "root",
-                        "Rony2003ae"
-                );
-            } catch (ClassNotFoundException e) {
-                throw new SQLException("❌ MySQL Driver not found!", e);
+    // Pool settings can be overridden with -Ddb.url=..., -Ddb.pool.maxSize=... etc.
+    public static DataSource getDataSource() throws SQLException {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DBConnection.class) {
+                p = pool;
+                if (p == null) {
+                    try {
+                        Class.forName("com.mysql.cj.jdbc.Driver");
+                    } catch (ClassNotFoundException e) {
+                        throw new SQLException("❌ MySQL Driver not found!", e);
+                    }
+                    Properties info = new Properties();
+                    info.setProperty("user", System.getProperty("db.user", "root"));
+                    info.setProperty("password", System.getProperty("db.password", "Rony2003ae"));
+                    // Real server-side prepared statements, kept open by the pool's statement cache
+                    info.setProperty("useServerPrepStmts", "true");
+                    info.setProperty("useLocalSessionState", "true");
+                    // JDBC batches go to the server as multi-row statements, not one per row
+                    info.setProperty("rewriteBatchedStatements", "true");
+                    // Statements with a fetch size read through a server cursor (streamed exports)
+                    info.setProperty("useCursorFetch", "true");
+
+                    p = new ConnectionPool(
+                            System.getProperty("db.url", "jdbc:mysql://localhost:3306/pr"),
+                            info,
+                            Integer.getInteger("db.pool.minIdle", 2),
+                            Integer.getInteger("db.pool.maxSize", 10),
+                            Long.getLong("db.pool.borrowTimeoutMs", 5_000L),
+                            Long.getLong("db.pool.idleTimeoutMs", 300_000L),
+                            Long.getLong("db.pool.leakThresholdMs", 60_000L),
+                            Integer.getInteger("db.pool.statementCacheSize", 64)
+                    );
+                    pool = p;
+                }
             }
         }
-        return instance;
+        return p;
+    }
+
+    /** Borrows a pooled connection; closing it returns it to the pool. */
+    public static Connection getConnection() throws SQLException {
+        return getDataSource().getConnection();
+    }
+
+    public static void shutdown() {
+        ConnectionPool p = pool;
+        if (p != null) p.shutdown();
     }
 }
@@ -3,49 +3,132 @@ package com.example.finalproject.dao;
 import com.example.finalproject.model.Order;
 import com.example.finalproject.model.OrderItem;
 
+import java.io.IOException;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 public class OrderDao {
+    private final ReservationDao reservations = new ReservationDao();
+    private final SalesAggregateDao aggregates = new SalesAggregateDao();
 
+    // Rows per multi-row INSERT of order items; keeps statements well under max_allowed_packet
+    private static final int ITEM_ROWS_PER_INSERT = 500;
+
+    private final ShippingDao shipping = new ShippingDao();
+
+    /**
+     * Saves the order, its items, its stock and its shipping row in one transaction.
+     * Round trips do not grow with the cart: one insert for the order, one multi-row
+     * insert per 500 items, four set-based stock statements and one shipping insert.
+     */
     public void saveOrder(Order order) throws SQLException {
-        Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                insertOrder(conn, order);
+                conn.commit();
+            } catch (SQLException | RuntimeException e) {
+                // Roll back before setAutoCommit(true), which would commit the partial order
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
 
-        conn.setAutoCommit(false);
-        try {
-            PreparedStatement ps = conn.prepareStatement(
-                    "INSERT INTO orders(user_id,total,status) VALUES(?,?,?)",
-                    Statement.RETURN_GENERATED_KEYS);
+    /**
+     * Group commit: saves many orders in one transaction, each behind its own savepoint.
+     * An order that fails (e.g. out of stock, or a malformed order) is rolled back alone and
+     * its exception is returned at its index; null means saved. Throws when the transaction
+     * as a whole fails: with SQLState class 40 (deadlock) nothing was saved; if the commit
+     * itself failed (e.g. the connection dropped) the orders may or may not have been saved.
+     */
+    public List<Exception> saveOrders(List<Order> orders) throws SQLException {
+        List<Exception> failures = new ArrayList<>(orders.size());
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                for (Order order : orders) {
+                    Savepoint sp = conn.setSavepoint();
+                    try {
+                        insertOrder(conn, order);
+                        conn.releaseSavepoint(sp);
+                        failures.add(null);
+                    } catch (SQLException e) {
+                        // SQLState class 40: the server already rolled back the whole transaction
+                        if (e.getSQLState() != null && e.getSQLState().startsWith("40")) throw e;
+                        conn.rollback(sp);
+                        order.setId(0);
+                        failures.add(e);
+                    } catch (RuntimeException e) {
+                        conn.rollback(sp);
+                        order.setId(0);
+                        failures.add(e);
+                    }
+                }
+                conn.commit();
+                return failures;
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                for (Order order : orders) order.setId(0);
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /** The statements of saveOrder on the caller's transaction; sets the order's id. */
+    void insertOrder(Connection conn, Order order) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "INSERT INTO orders(user_id,total,status) VALUES(?,?,?)",
+                Statement.RETURN_GENERATED_KEYS)) {
             ps.setInt(1, order.getUserId());
             ps.setDouble(2, order.getTotal());
             ps.setString(3, order.getStatus());
             ps.executeUpdate();
             ResultSet rs = ps.getGeneratedKeys();
             if (rs.next()) order.setId(rs.getInt(1));
+        }
+
+        List<OrderItem> items = order.getItems();
+        for (int from = 0; from < items.size(); from += ITEM_ROWS_PER_INSERT) {
+            insertItems(conn, order.getId(), items.subList(from, Math.min(items.size(), from + ITEM_ROWS_PER_INSERT)));
+        }
 
-            PreparedStatement itemStmt = conn.prepareStatement(
-                    "INSERT INTO order_items(order_id,product_id,quantity,price) VALUES(?,?,?,?)");
-            for (OrderItem item : order.getItems()) {
-                itemStmt.setInt(1, order.getId());
-                itemStmt.setInt(2, item.getProductId());
-                itemStmt.setInt(3, item.getQuantity());
-                itemStmt.setDouble(4, item.getPrice());
-                itemStmt.addBatch();
+        // Stock: the cart's reservations become the order's; fails if anything is short
+        reservations.commit(conn, order.getUserId(), items);
+
+        if (order.getShippingAddress() != null) {
+            shipping.createShipping(conn, order.getId(), order.getShippingAddress());
+        }
+    }
+
+    private void insertItems(Connection conn, int orderId, List<OrderItem> items) throws SQLException {
+        StringBuilder sql = new StringBuilder("INSERT INTO order_items(order_id,product_id,quantity,price) VALUES ");
+        for (int i = 0; i < items.size(); i++) sql.append(i == 0 ? "(?,?,?,?)" : ",(?,?,?,?)");
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int idx = 1;
+            for (OrderItem item : items) {
+                ps.setInt(idx++, orderId);
+                ps.setInt(idx++, item.getProductId());
+                ps.setInt(idx++, item.getQuantity());
+                ps.setDouble(idx++, item.getPrice());
             }
-            itemStmt.executeBatch();
-            conn.commit();
-        } catch (SQLException e) {
-            conn.rollback();
-            throw e;
-        } finally {
-            conn.setAutoCommit(true);
+            ps.executeUpdate();
         }
     }
 
     public List<Order> findAll() {
         List<Order> list = new ArrayList<>();
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              Statement st = conn.createStatement();
              ResultSet rs = st.executeQuery("SELECT * FROM orders ORDER BY created_at DESC")) {
             while (rs.next()) {
@@ -63,6 +146,94 @@ public class OrderDao {
         return list;
     }
 
+    public int countAll() throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM orders")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    /**
+     * Streams every order, newest first, through a forward-only server cursor that fetches
+     * fetchSize rows at a time, so memory does not grow with the order history.
+     */
+    public void streamAll(int fetchSize, RowHandler<Order> handler) throws SQLException, IOException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT id, user_id, total, status, created_at FROM orders ORDER BY created_at DESC",
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(fetchSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    handler.accept(new Order(
+                            rs.getInt(1),
+                            rs.getInt(2),
+                            rs.getDouble(3),
+                            rs.getString(4),
+                            rs.getTimestamp(5)
+                    ));
+                }
+            }
+        }
+    }
+
+    /** Ids of the orders created in [from, to), oldest first. */
+    public List<Integer> findIdsCreatedBetween(Timestamp from, Timestamp to) throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT id FROM orders WHERE created_at >= ? AND created_at < ? ORDER BY created_at, id")) {
+            ps.setTimestamp(1, from);
+            ps.setTimestamp(2, to);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) ids.add(rs.getInt(1));
+        }
+        return ids;
+    }
+
+    /**
+     * Orders with their items and product names, in one query per 1000 ids.
+     * Returned in id order; ids that do not exist are skipped.
+     */
+    public List<Order> findWithItems(Collection<Integer> ids) throws SQLException {
+        Map<Integer, Order> orders = new TreeMap<>();
+        List<Integer> all = new ArrayList<>(new TreeSet<>(ids));
+        try (Connection conn = DBConnection.getConnection()) {
+            for (int from = 0; from < all.size(); from += 1000) {
+                List<Integer> chunk = all.subList(from, Math.min(all.size(), from + 1000));
+                try (PreparedStatement ps = conn.prepareStatement("""
+                        SELECT o.id, o.user_id, o.total, o.status, o.created_at,
+                               oi.id AS item_id, oi.product_id, oi.quantity, oi.price, p.name
+                        FROM orders o
+                        LEFT JOIN order_items oi ON oi.order_id = o.id
+                        LEFT JOIN products p ON p.id = oi.product_id
+                        WHERE o.id IN (""" + ReservationDao.placeholders(chunk.size()) + ") ORDER BY o.id, oi.id")) {
+                    for (int i = 0; i < chunk.size(); i++) ps.setInt(i + 1, chunk.get(i));
+                    ResultSet rs = ps.executeQuery();
+                    while (rs.next()) {
+                        int id = rs.getInt("id");
+                        Order order = orders.computeIfAbsent(id, k -> new Order());
+                        if (order.getItems() == null) {
+                            order.setId(id);
+                            order.setUserId(rs.getInt("user_id"));
+                            order.setTotal(rs.getDouble("total"));
+                            order.setStatus(rs.getString("status"));
+                            order.setCreatedAt(rs.getTimestamp("created_at"));
+                            order.setItems(new ArrayList<>());
+                        }
+                        int itemId = rs.getInt("item_id");
+                        if (rs.wasNull()) continue;   // order without items
+                        OrderItem item = new OrderItem(itemId, id, rs.getInt("product_id"), rs.getInt("quantity"), rs.getDouble("price"));
+                        item.setProductName(rs.getString("name"));
+                        order.getItems().add(item);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(orders.values());
+    }
+
     public List<Order> filterOrders(String keyword, String status) {
         List<Order> list = new ArrayList<>();
         StringBuilder sql = new StringBuilder("SELECT * FROM orders WHERE 1=1 ");
@@ -75,7 +246,7 @@ public class OrderDao {
         }
         sql.append("ORDER BY created_at DESC");
 
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql.toString())) {
 
             int idx = 1;
@@ -104,19 +275,43 @@ public class OrderDao {
         return list;
     }
 
+    // Orders in this status count towards the sales aggregates
+    private static final String DELIVERED = "DELIVERED";
+
+    /** Changes the status; entering or leaving DELIVERED updates the sales aggregates in the same transaction. */
     public void updateStatus(int id, String status) {
-        try (Connection conn = DBConnection.getInstance();
-             PreparedStatement ps = conn.prepareStatement("UPDATE orders SET status=? WHERE id=?")) {
-            ps.setString(1, status);
-            ps.setInt(2, id);
-            ps.executeUpdate();
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement("UPDATE orders SET status=? WHERE id=?")) {
+                String old = lockStatus(conn, id);
+                ps.setString(1, status);
+                ps.setInt(2, id);
+                ps.executeUpdate();
+
+                boolean was = DELIVERED.equals(old), is = DELIVERED.equals(status);
+                if (old != null && was != is) aggregates.apply(conn, id, is ? 1 : -1);
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
+    private String lockStatus(Connection conn, int id) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT status FROM orders WHERE id=? FOR UPDATE")) {
+            ps.setInt(1, id);
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getString(1) : null;
+        }
+    }
+
     public Order findById(int id) {
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement("SELECT * FROM orders WHERE id=?")) {
             ps.setInt(1, id);
             ResultSet rs = ps.executeQuery();
@@ -135,9 +330,19 @@ public class OrderDao {
         return null;
     }
 
+    /** The day the order was placed, as the sales aggregates bucket it; null if there is no such order. */
+    public LocalDate findOrderDay(int id) throws SQLException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT DATE(created_at) FROM orders WHERE id=?")) {
+            ps.setInt(1, id);
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getDate(1).toLocalDate() : null;
+        }
+    }
+
     public List<OrderItem> findItemsByOrder(int orderId) {
         List<OrderItem> list = new ArrayList<>();
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement("SELECT * FROM order_items WHERE order_id=?")) {
             ps.setInt(1, orderId);
             ResultSet rs = ps.executeQuery();
@@ -158,9 +363,12 @@ public class OrderDao {
 
     // ✅ FIXED: When deleting, restore product stock
     public void delete(int id) {
-        try (Connection conn = DBConnection.getInstance()) {
+        try (Connection conn = DBConnection.getConnection()) {
             conn.setAutoCommit(false);
 
+            // A delivered order leaves the sales aggregates with it
+            if (DELIVERED.equals(lockStatus(conn, id))) aggregates.apply(conn, id, -1);
+
             // Get order items before deleting
             List<OrderItem> items = new ArrayList<>();
             try (PreparedStatement ps = conn.prepareStatement("SELECT product_id, quantity FROM order_items WHERE order_id=?")) {
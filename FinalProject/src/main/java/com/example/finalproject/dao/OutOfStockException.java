@@ -0,0 +1,17 @@
+package com.example.finalproject.dao;
+
+import java.sql.SQLException;
+
+/** A conditional stock update found fewer units than requested; the transaction was rolled back. */
+public class OutOfStockException extends SQLException {
+    private final int productId;
+
+    public OutOfStockException(int productId) {
+        super("Not enough stock for product #" + productId);
+        this.productId = productId;
+    }
+
+    public int getProductId() {
+        return productId;
+    }
+}
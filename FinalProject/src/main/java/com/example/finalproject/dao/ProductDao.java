@@ -1,6 +1,9 @@
 package com.example.finalproject.dao;
 
 import com.example.finalproject.model.Product;
+import com.example.finalproject.model.ProductCard;
+import com.example.finalproject.model.ProductSort;
+import java.io.IOException;
 import java.sql.*;
 import java.util.*;
 
@@ -9,45 +12,213 @@ public class ProductDao {
     public List<Product> getAllProducts() {
         List<Product> list = new ArrayList<>();
 
-        String sql = """
-        SELECT p.*, 
-               COALESCE(pr.discount, 0) AS discount
-        FROM products p
-        LEFT JOIN promotions pr
-        ON (pr.product_id = p.id OR pr.category = p.category)
-        AND CURDATE() BETWEEN pr.start_date AND pr.end_date
-        ORDER BY p.id DESC
-        """;
+        // Discounts are filled in by DiscountResolver, one best promotion per product
+        String sql = "SELECT * FROM products ORDER BY id DESC";
 
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              Statement st = conn.createStatement();
              ResultSet rs = st.executeQuery(sql)) {
 
             while (rs.next()) {
-                Product p = new Product(
-                        rs.getInt("id"),
-                        rs.getString("name"),
-                        rs.getString("category"),
-                        rs.getDouble("price"),
-                        rs.getString("description"),
-                        rs.getString("imagePath"),
-                        rs.getInt("stock")
+                list.add(map(rs));
+            }
+
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        return list;
+    }
+
+
+    /**
+     * Loads product row, rating summary and wishlist flag for a page of
+     * products in one round trip. Cards come back in the same order as {@code ids}.
+     */
+    public List<ProductCard> findCards(List<Integer> ids, int userId) {
+        List<ProductCard> cards = new ArrayList<>();
+        if (ids.isEmpty()) return cards;
+
+        int slots = inSlots(ids.size());
+        String in = String.join(",", Collections.nCopies(slots, "?"));
+        String sql = """
+        SELECT p.*,
+               COALESCE(r.avg_rating, 0) AS avg_rating,
+               COALESCE(r.review_count, 0) AS review_count,
+               w.product_id IS NOT NULL AS in_wishlist
+        FROM products p
+        LEFT JOIN (SELECT product_id, AVG(rating) AS avg_rating, COUNT(*) AS review_count
+                   FROM review WHERE product_id IN (%s)
+                   GROUP BY product_id) r ON r.product_id = p.id
+        LEFT JOIN wishlist w ON w.product_id = p.id AND w.user_id = ?
+        WHERE p.id IN (%s)
+        """.formatted(in, in);
+
+        Map<Integer, ProductCard> byId = new HashMap<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int idx = bindIn(ps, 1, ids, slots);
+            ps.setInt(idx++, userId);
+            bindIn(ps, idx, ids, slots);
+
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                ProductCard card = new ProductCard(
+                        map(rs),
+                        rs.getDouble("avg_rating"),
+                        rs.getInt("review_count"),
+                        rs.getBoolean("in_wishlist")
                 );
-                p.setDiscount(rs.getDouble("discount"));
-                list.add(p);
+                byId.put(card.getProduct().getId(), card);
             }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+
+        for (int id : ids) {
+            ProductCard card = byId.get(id);
+            if (card != null) cards.add(card);
+        }
+        return cards;
+    }
+
+    /** Products for the ids, in one query per 1000 ids; ids that do not exist are skipped. */
+    public List<Product> findByIds(Collection<Integer> ids) {
+        List<Product> list = new ArrayList<>();
+        if (ids.isEmpty()) return list;
 
+        List<Integer> all = new ArrayList<>(ids);
+        try (Connection conn = DBConnection.getConnection()) {
+            for (int from = 0; from < all.size(); from += 1000) {
+                List<Integer> chunk = all.subList(from, Math.min(all.size(), from + 1000));
+                int slots = inSlots(chunk.size());
+                String sql = "SELECT * FROM products WHERE id IN (" + String.join(",", Collections.nCopies(slots, "?")) + ")";
+                try (PreparedStatement ps = conn.prepareStatement(sql)) {
+                    bindIn(ps, 1, chunk, slots);
+                    ResultSet rs = ps.executeQuery();
+                    while (rs.next()) list.add(map(rs));
+                }
+            }
         } catch (SQLException e) {
             e.printStackTrace();
         }
+        return list;
+    }
+
+    /** Every product, streamed so the catalog is never held in memory at once (e.g. to build the search index). */
+    public void streamAll(int fetchSize, RowHandler<Product> handler) throws SQLException, IOException {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT * FROM products",
+                     ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(fetchSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) handler.accept(map(rs));
+            }
+        }
+    }
 
+    // Pad IN lists to power-of-two sizes so the statement cache only sees a handful of SQL shapes
+    private int inSlots(int size) {
+        return Math.max(8, Integer.highestOneBit(size - 1) << 1);
+    }
+
+    private int bindIn(PreparedStatement ps, int idx, List<Integer> ids, int slots) throws SQLException {
+        for (int i = 0; i < slots; i++) ps.setInt(idx++, ids.get(Math.min(i, ids.size() - 1)));
+        return idx;
+    }
+
+    /**
+     * One page of the catalog using keyset pagination: {@code after} is the last product of
+     * the previous page (null for the first page), so deep pages cost the same as the first.
+     */
+    public List<Product> findPage(String keyword, String category, ProductSort sort, Product after, int limit) {
+        List<Product> list = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT p.* FROM products p WHERE 1=1 ");
+        appendFilters(sql, params, keyword, category);
+
+        if (after != null) {
+            switch (sort) {
+                case NEWEST, RELEVANCE -> {
+                    sql.append("AND p.id < ? ");
+                    params.add(after.getId());
+                }
+                case PRICE_LOW -> {
+                    sql.append("AND (p.price > ? OR (p.price = ? AND p.id > ?)) ");
+                    Collections.addAll(params, after.getPrice(), after.getPrice(), after.getId());
+                }
+                case PRICE_HIGH -> {
+                    sql.append("AND (p.price < ? OR (p.price = ? AND p.id < ?)) ");
+                    Collections.addAll(params, after.getPrice(), after.getPrice(), after.getId());
+                }
+                case NAME -> {
+                    sql.append("AND (p.name > ? OR (p.name = ? AND p.id > ?)) ");
+                    Collections.addAll(params, after.getName(), after.getName(), after.getId());
+                }
+            }
+        }
+
+        sql.append(switch (sort) {
+            case NEWEST, RELEVANCE -> "ORDER BY p.id DESC ";
+            case PRICE_LOW -> "ORDER BY p.price ASC, p.id ASC ";
+            case PRICE_HIGH -> "ORDER BY p.price DESC, p.id DESC ";
+            case NAME -> "ORDER BY p.name ASC, p.id ASC ";
+        });
+        sql.append("LIMIT ?");
+        params.add(limit);
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            bind(ps, params);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) list.add(map(rs));
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
         return list;
     }
 
+    public int countProducts(String keyword, String category) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) FROM products p WHERE 1=1 ");
+        appendFilters(sql, params, keyword, category);
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            bind(ps, params);
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) return rs.getInt(1);
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return 0;
+    }
+
+    private void appendFilters(StringBuilder sql, List<Object> params, String keyword, String category) {
+        if (category != null && !category.isEmpty() && !"All".equalsIgnoreCase(category)) {
+            sql.append("AND p.category = ? ");
+            params.add(category);
+        }
+        if (keyword != null && !keyword.isBlank()) {
+            String kw = "%" + keyword.trim() + "%";
+            sql.append("AND (p.name LIKE ? OR p.category LIKE ?) ");
+            params.add(kw);
+            params.add(kw);
+        }
+    }
+
+    private void bind(PreparedStatement ps, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            Object v = params.get(i);
+            if (v instanceof Integer n) ps.setInt(i + 1, n);
+            else if (v instanceof Double d) ps.setDouble(i + 1, d);
+            else ps.setString(i + 1, (String) v);
+        }
+    }
 
     public Optional<Product> getById(int id) {
         String sql = "SELECT * FROM products WHERE id=?";
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             ResultSet rs = ps.executeQuery();
@@ -60,8 +231,8 @@ public class ProductDao {
 
     public void insert(Product p) {
         String sql = "INSERT INTO products(name,category,price,description,imagePath,stock) VALUES(?,?,?,?,?,?)";
-        try (Connection conn = DBConnection.getInstance();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             ps.setString(1, p.getName());
             ps.setString(2, p.getCategory());
             ps.setDouble(3, p.getPrice());
@@ -69,18 +240,21 @@ public class ProductDao {
             ps.setString(5, p.getImagePath());
             ps.setInt(6, p.getStock());
             ps.executeUpdate();
+
+            ResultSet keys = ps.getGeneratedKeys();
+            if (keys.next()) p.setId(keys.getInt(1));
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
 
-    public void update(Product p) {
+    public boolean update(Product p) {
         String sql = """
                 UPDATE products
                 SET name=?, category=?, price=?, description=?, imagePath=?, stock=?
                 WHERE id=?
                 """;
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setString(1, p.getName());
             ps.setString(2, p.getCategory());
@@ -89,16 +263,17 @@ public class ProductDao {
             ps.setString(5, p.getImagePath());
             ps.setInt(6, p.getStock());
             ps.setInt(7, p.getId());
-            ps.executeUpdate();
+            return ps.executeUpdate() > 0;
         } catch (Exception e) {
             e.printStackTrace();
+            return false;
         }
     }
 
 
     public void delete(int id) {
         String sql = "DELETE FROM products WHERE id=?";
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, id);
             ps.executeUpdate();
@@ -107,14 +282,17 @@ public class ProductDao {
         }
     }
 
-    public void decreaseStock(int productId, int quantity) {
-        try (Connection conn = DBConnection.getInstance();
-             PreparedStatement ps = conn.prepareStatement("UPDATE products SET stock = stock - ? WHERE id = ?")) {
+    // Only succeeds when enough stock is left, so stock never goes negative
+    public boolean decreaseStock(int productId, int quantity) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?")) {
             ps.setInt(1, quantity);
             ps.setInt(2, productId);
-            ps.executeUpdate();
+            ps.setInt(3, quantity);
+            return ps.executeUpdate() == 1;
         } catch (SQLException e) {
             e.printStackTrace();
+            return false;
         }
     }
 
@@ -128,7 +306,6 @@ public class ProductDao {
                 rs.getString("imagePath"),
                 rs.getInt("stock")
         );
-        p.setDiscount(rs.getDouble("discount")); // assumes column exists
         return p;
     }
 }
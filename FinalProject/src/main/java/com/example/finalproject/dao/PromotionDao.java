@@ -2,6 +2,7 @@ package com.example.finalproject.dao;
 
 import com.example.finalproject.model.Promotion;
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -9,7 +10,7 @@ public class PromotionDao {
 
     public void insert(Promotion p) throws SQLException {
         String sql = "INSERT INTO promotions(product_id, category, discount, start_date, end_date) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             if (p.getProductId() != null)
                 ps.setInt(1, p.getProductId());
@@ -27,7 +28,7 @@ public class PromotionDao {
     public List<Promotion> getAll() {
         List<Promotion> list = new ArrayList<>();
         String sql = "SELECT * FROM promotions ORDER BY id DESC";
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              Statement st = conn.createStatement();
              ResultSet rs = st.executeQuery(sql)) {
             while (rs.next()) {
@@ -39,8 +40,24 @@ public class PromotionDao {
         return list;
     }
 
+    /** Promotions that are running or will start later, i.e. not yet expired on {@code day}. */
+    public List<Promotion> findEndingOnOrAfter(LocalDate day) {
+        List<Promotion> list = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT * FROM promotions WHERE end_date >= ?")) {
+            ps.setDate(1, Date.valueOf(day));
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                list.add(map(rs));
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+        return list;
+    }
+
     public void delete(int id) {
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement("DELETE FROM promotions WHERE id=?")) {
             ps.setInt(1, id);
             ps.executeUpdate();
@@ -1,64 +1,85 @@
 package com.example.finalproject.dao;
 
 import com.example.finalproject.model.TopProduct;
-import com.example.finalproject.model.DailySale;
+import java.io.IOException;
 import java.sql.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
 
+/** Report queries; they read the aggregates kept by SalesAggregateDao, not the order history. */
 public class ReportDao {
+    private static final String TOP_SELLING = """
+            SELECT p.name, SUM(sp.quantity) AS qty, SUM(sp.revenue) AS revenue
+            FROM sales_product sp
+            JOIN products p ON p.id = sp.product_id
+            WHERE sp.quantity > 0
+            GROUP BY p.name
+            ORDER BY qty DESC
+        """;
+
+    private final SalesAggregateDao aggregates = new SalesAggregateDao();
 
-    public double getTotalRevenue() {
-        String sql = "SELECT SUM(total) FROM orders WHERE status='DELIVERED'";
-        try (Connection conn = DBConnection.getInstance();
+    /** Number of products with sales; an upper bound for the rows of the top-selling report. */
+    public int countSoldProducts() throws SQLException {
+        aggregates.ensureBackfilled();
+        try (Connection conn = DBConnection.getConnection();
              Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
-            if (rs.next()) return rs.getDouble(1);
-        } catch (Exception e) { e.printStackTrace(); }
-        return 0;
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM sales_product WHERE quantity > 0")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
     }
 
-    public List<DailySale> getDailySales() {
-        List<DailySale> list = new ArrayList<>();
-        String sql = """
-            SELECT DATE(created_at) AS day, SUM(total) AS daily_sales
-            FROM orders
-            WHERE status='DELIVERED'
-            GROUP BY DATE(created_at)
-            ORDER BY day ASC
-        """;
-        try (Connection conn = DBConnection.getInstance();
-             Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
-            while (rs.next()) {
-                list.add(new DailySale(rs.getString("day"), rs.getDouble("daily_sales")));
+    /** Products by quantity sold, best first, streamed through a forward-only cursor. */
+    public void streamTopSellingProducts(int fetchSize, RowHandler<TopProduct> handler) throws SQLException, IOException {
+        aggregates.ensureBackfilled();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(TOP_SELLING, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            ps.setFetchSize(fetchSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) handler.accept(new TopProduct(rs.getString(1), rs.getInt(2), rs.getDouble(3)));
             }
-        } catch (Exception e) { e.printStackTrace(); }
-        return list;
+        }
     }
 
-    public List<TopProduct> getTopSellingProducts() {
-        List<TopProduct> list = new ArrayList<>();
-        String sql = """
-            SELECT p.name, SUM(oi.quantity) AS qty, SUM(oi.price * oi.quantity) AS revenue
-            FROM order_items oi
-            JOIN products p ON p.id = oi.product_id
-            JOIN orders o ON o.id = oi.order_id
-            WHERE o.status='DELIVERED'
-            GROUP BY p.name
-            ORDER BY qty DESC
-        """;
-        try (Connection conn = DBConnection.getInstance();
-             Statement st = conn.createStatement();
-             ResultSet rs = st.executeQuery(sql)) {
-            while (rs.next()) {
-                list.add(new TopProduct(
-                        rs.getString("name"),
-                        rs.getInt("qty"),
-                        rs.getDouble("revenue")
-                ));
+    /**
+     * Streams the per-day, per-product sales aggregates with the product's current name and
+     * category, ordered by day; used to feed ReportService. day and productIds narrow it to
+     * the given cells (null for all of them).
+     */
+    public void streamProductDays(LocalDate day, Collection<Integer> productIds, int fetchSize, CellHandler handler)
+            throws SQLException {
+        aggregates.ensureBackfilled();
+        if (productIds != null && productIds.isEmpty()) return;
+        StringBuilder sql = new StringBuilder("""
+            SELECT s.day, s.product_id, p.name, p.category, s.quantity, s.revenue
+            FROM sales_product_daily s
+            LEFT JOIN products p ON p.id = s.product_id
+            WHERE (s.quantity <> 0 OR s.revenue <> 0)
+        """);
+        if (day != null) sql.append(" AND s.day = ?");
+        if (productIds != null) sql.append(" AND s.product_id IN (").append(ReservationDao.placeholders(productIds.size())).append(")");
+        sql.append(" ORDER BY s.day, s.product_id");
+
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql.toString(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            int idx = 1;
+            if (day != null) ps.setDate(idx++, Date.valueOf(day));
+            if (productIds != null) {
+                for (int id : productIds) ps.setInt(idx++, id);
             }
-        } catch (Exception e) { e.printStackTrace(); }
-        return list;
+            ps.setFetchSize(fetchSize);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    handler.accept(rs.getDate(1).toLocalDate(), rs.getInt(2), rs.getString(3), rs.getString(4),
+                            rs.getInt(5), rs.getDouble(6));
+                }
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface CellHandler {
+        void accept(LocalDate day, int productId, String productName, String category, int quantity, double revenue);
     }
 }
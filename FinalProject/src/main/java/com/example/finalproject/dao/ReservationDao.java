@@ -0,0 +1,255 @@
+package com.example.finalproject.dao;
+
+import com.example.finalproject.model.OrderItem;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Stock held for carts. Reserving moves units from products.stock into stock_reservations
+ * in one transaction, guarded by "stock >= qty", so concurrent carts can never oversell.
+ *
+ * Transactions lock product rows (ascending id) before reservation rows, and reservation
+ * rows are found through indexes that cover the query (user_id, product_id) or
+ * (product_id, expires_at), so reserve, release, checkout and the expiry sweep rarely
+ * contend. InnoDB can still pick a deadlock victim; callers see an SQLException and the
+ * sweep simply runs again.
+ */
+public class ReservationDao {
+
+    private static final String TAKE_STOCK = "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?";
+    private static final String RETURN_STOCK = "UPDATE products SET stock = stock + ? WHERE id = ?";
+
+    /** Reserves qty more units for the user's cart; false if there is not enough stock. */
+    public boolean reserve(int userId, int productId, int qty, Timestamp expiresAt) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement take = conn.prepareStatement(TAKE_STOCK);
+                 PreparedStatement hold = conn.prepareStatement(
+                         "INSERT INTO stock_reservations(user_id,product_id,quantity,expires_at) VALUES(?,?,?,?) " +
+                         "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), expires_at = VALUES(expires_at)")) {
+                take.setInt(1, qty);
+                take.setInt(2, productId);
+                take.setInt(3, qty);
+                if (take.executeUpdate() == 0) {
+                    conn.rollback();
+                    return false;
+                }
+
+                hold.setInt(1, userId);
+                hold.setInt(2, productId);
+                hold.setInt(3, qty);
+                hold.setTimestamp(4, expiresAt);
+                hold.executeUpdate();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+
+            // Activity on the cart keeps all of its reservations alive. Done on its own after the
+            // commit: locking every reservation of the user while holding the product lock would
+            // be the reverse of checkout's product-then-reservation order.
+            try (PreparedStatement extend = conn.prepareStatement(
+                    "UPDATE stock_reservations SET expires_at = ? WHERE user_id = ? AND expires_at < ?")) {
+                extend.setTimestamp(1, expiresAt);
+                extend.setInt(2, userId);
+                extend.setTimestamp(3, expiresAt);
+                extend.executeUpdate();
+            } catch (SQLException e) {
+                // The units are reserved; the cart's other lines just keep their earlier expiry
+                e.printStackTrace();
+            }
+            return true;
+        }
+    }
+
+    /** Gives the user's reserved units of one product back to stock; returns how many. */
+    public int release(int userId, int productId) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                lockProduct(conn, productId);
+                int qty = lockReserved(conn, userId, productId);
+                if (qty > 0) {
+                    returnStock(conn, productId, qty);
+                    delete(conn, userId, productId);
+                }
+                conn.commit();
+                return qty;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Turns the user's reservations into the order's stock, on the order's connection/transaction.
+     * Units the cart holds are already out of stock; missing ones (e.g. expired) are taken now
+     * and surplus ones are returned. Throws OutOfStockException when a product cannot cover
+     * the order; the caller rolls back.
+     *
+     * Set-based: four statements whatever the number of lines (lock products, lock reservations,
+     * one CASE update of stock, one delete), in the usual product-before-reservation lock order.
+     */
+    public void commit(Connection conn, int userId, List<OrderItem> items) throws SQLException {
+        Map<Integer, Integer> wanted = new TreeMap<>();
+        for (OrderItem item : items) wanted.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        if (wanted.isEmpty()) return;
+        String in = placeholders(wanted.size());
+
+        // Products in ascending id order, with the stock they have left
+        Map<Integer, Integer> stock = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT id, stock FROM products WHERE id IN (" + in + ") ORDER BY id FOR UPDATE")) {
+            bindIds(ps, 1, wanted.keySet());
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) stock.put(rs.getInt(1), rs.getInt(2));
+        }
+
+        Map<Integer, Integer> reserved = new HashMap<>();
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT product_id, quantity FROM stock_reservations WHERE user_id = ? AND product_id IN (" + in + ") FOR UPDATE")) {
+            ps.setInt(1, userId);
+            bindIds(ps, 2, wanted.keySet());
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) reserved.put(rs.getInt(1), rs.getInt(2));
+        }
+
+        // Stock change per product: negative takes missing units, positive returns surplus
+        Map<Integer, Integer> delta = new TreeMap<>();
+        for (Map.Entry<Integer, Integer> e : wanted.entrySet()) {
+            int missing = e.getValue() - reserved.getOrDefault(e.getKey(), 0);
+            if (missing > 0 && stock.getOrDefault(e.getKey(), 0) < missing) throw new OutOfStockException(e.getKey());
+            if (missing != 0) delta.put(e.getKey(), -missing);
+        }
+
+        if (!delta.isEmpty()) {
+            StringBuilder sql = new StringBuilder("UPDATE products SET stock = stock + CASE id");
+            for (int i = 0; i < delta.size(); i++) sql.append(" WHEN ? THEN ?");
+            sql.append(" END WHERE id IN (").append(placeholders(delta.size())).append(")");
+            try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+                int idx = 1;
+                for (Map.Entry<Integer, Integer> e : delta.entrySet()) {
+                    ps.setInt(idx++, e.getKey());
+                    ps.setInt(idx++, e.getValue());
+                }
+                bindIds(ps, idx, delta.keySet());
+                ps.executeUpdate();
+            }
+        }
+
+        if (!reserved.isEmpty()) {
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "DELETE FROM stock_reservations WHERE user_id = ? AND product_id IN (" + placeholders(reserved.size()) + ")")) {
+                ps.setInt(1, userId);
+                bindIds(ps, 2, reserved.keySet());
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    /**
+     * Returns the stock of reservations that expired before now, at most limit per call.
+     * Returns the affected product ids. Expired rows are locked per product through
+     * idx_reservations_product_expires, so other products' reservations stay unlocked.
+     */
+    public List<Integer> releaseExpired(Timestamp now, int limit) throws SQLException {
+        // Find candidates without locking, then lock product by product in id order
+        TreeSet<Integer> productIds = new TreeSet<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT DISTINCT product_id FROM stock_reservations WHERE expires_at < ? LIMIT ?")) {
+            ps.setTimestamp(1, now);
+            ps.setInt(2, limit);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) productIds.add(rs.getInt(1));
+        }
+        if (productIds.isEmpty()) return List.of();
+
+        List<Integer> released = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement expired = conn.prepareStatement(
+                         "SELECT COALESCE(SUM(quantity), 0) FROM stock_reservations WHERE product_id = ? AND expires_at < ? FOR UPDATE");
+                 PreparedStatement delete = conn.prepareStatement(
+                         "DELETE FROM stock_reservations WHERE product_id = ? AND expires_at < ?")) {
+                for (int productId : productIds) {
+                    lockProduct(conn, productId);
+                    expired.setInt(1, productId);
+                    expired.setTimestamp(2, now);
+                    ResultSet rs = expired.executeQuery();
+                    int qty = rs.next() ? rs.getInt(1) : 0;
+                    if (qty == 0) continue;   // renewed in the meantime
+
+                    returnStock(conn, productId, qty);
+                    delete.setInt(1, productId);
+                    delete.setTimestamp(2, now);
+                    delete.executeUpdate();
+                    released.add(productId);
+                }
+                conn.commit();
+                return released;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    private void lockProduct(Connection conn, int productId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement("SELECT id FROM products WHERE id = ? FOR UPDATE")) {
+            ps.setInt(1, productId);
+            ps.executeQuery().close();
+        }
+    }
+
+    private int lockReserved(Connection conn, int userId, int productId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "SELECT quantity FROM stock_reservations WHERE user_id = ? AND product_id = ? FOR UPDATE")) {
+            ps.setInt(1, userId);
+            ps.setInt(2, productId);
+            ResultSet rs = ps.executeQuery();
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void returnStock(Connection conn, int productId, int qty) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(RETURN_STOCK)) {
+            ps.setInt(1, qty);
+            ps.setInt(2, productId);
+            ps.executeUpdate();
+        }
+    }
+
+    private void delete(Connection conn, int userId, int productId) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                "DELETE FROM stock_reservations WHERE user_id = ? AND product_id = ?")) {
+            ps.setInt(1, userId);
+            ps.setInt(2, productId);
+            ps.executeUpdate();
+        }
+    }
+
+    static String placeholders(int n) {
+        return String.join(",", Collections.nCopies(n, "?"));
+    }
+
+    private static void bindIds(PreparedStatement ps, int from, Collection<Integer> ids) throws SQLException {
+        for (int id : ids) ps.setInt(from++, id);
+    }
+}
@@ -8,19 +8,20 @@ import java.util.List;
 public class ReviewDao {
 
     public void saveReview(Review review) throws SQLException {
-        Connection conn = DBConnection.getInstance();
-        PreparedStatement ps = conn.prepareStatement(
-                "INSERT INTO review(product_id, user_id, rating, comment) VALUES(?,?,?,?)");
-        ps.setInt(1, review.getProductId());
-        ps.setInt(2, review.getUserId());
-        ps.setInt(3, review.getRating());
-        ps.setString(4, review.getComment());
-        ps.executeUpdate();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "INSERT INTO review(product_id, user_id, rating, comment) VALUES(?,?,?,?)")) {
+            ps.setInt(1, review.getProductId());
+            ps.setInt(2, review.getUserId());
+            ps.setInt(3, review.getRating());
+            ps.setString(4, review.getComment());
+            ps.executeUpdate();
+        }
     }
 
     public List<Review> getReviewsByProduct(int productId) {
         List<Review> list = new ArrayList<>();
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement("SELECT * FROM review WHERE product_id=? ORDER BY created_at DESC")) {
             ps.setInt(1, productId);
             ResultSet rs = ps.executeQuery();
@@ -41,7 +42,7 @@ public class ReviewDao {
     }
 
     public double getAverageRating(int productId) {
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement("SELECT AVG(rating) AS avg FROM review WHERE product_id=?")) {
             ps.setInt(1, productId);
             ResultSet rs = ps.executeQuery();
@@ -57,7 +58,7 @@ public class ReviewDao {
         String sql = "SELECT r.*, u.name AS username FROM review r " +
                 "JOIN users u ON r.user_id = u.id WHERE r.product_id=? ORDER BY r.created_at DESC";
 
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, productId);
             ResultSet rs = ps.executeQuery();
@@ -86,7 +87,7 @@ public class ReviewDao {
                 "JOIN users u ON r.user_id = u.id " +
                 "JOIN products p ON r.product_id = p.id " +
                 "ORDER BY r.created_at DESC";
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql);
              ResultSet rs = ps.executeQuery()) {
             while (rs.next()) {
@@ -0,0 +1,9 @@
+package com.example.finalproject.dao;
+
+import java.io.IOException;
+
+/** Receives the rows of a streamed query one at a time, e.g. to write them to a file. */
+@FunctionalInterface
+public interface RowHandler<T> {
+    void accept(T row) throws IOException;
+}
@@ -0,0 +1,98 @@
+package com.example.finalproject.dao;
+
+import java.sql.*;
+
+/**
+ * Delivered-order totals per day and product (sales_product_daily) and per product
+ * (sales_product), so reports read aggregate rows instead of scanning the order history.
+ *
+ * OrderDao applies every delivered order once (+1) and takes it out again when a delivered
+ * order is deleted (-1), inside the same transaction as the status change or delete.
+ * rebuild() recomputes both tables from orders/order_items.
+ */
+public class SalesAggregateDao {
+
+    // Bumped when the aggregate tables change shape, so older databases are rebuilt once
+    private static final int VERSION = 2;
+
+    private static volatile boolean backfilled;
+
+    /** Adds (sign = 1) or removes (sign = -1) one delivered order, on the caller's transaction. */
+    void apply(Connection conn, int orderId, int sign) throws SQLException {
+        try (PreparedStatement daily = conn.prepareStatement(
+                     "INSERT INTO sales_product_daily(day, product_id, quantity, revenue) " +
+                     "SELECT DATE(o.created_at), oi.product_id, SUM(oi.quantity) * ?, SUM(oi.price * oi.quantity) * ? " +
+                     "FROM order_items oi JOIN orders o ON o.id = oi.order_id WHERE oi.order_id = ? " +
+                     "GROUP BY DATE(o.created_at), oi.product_id " +
+                     "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), revenue = revenue + VALUES(revenue)");
+             PreparedStatement product = conn.prepareStatement(
+                     "INSERT INTO sales_product(product_id, quantity, revenue) " +
+                     "SELECT product_id, SUM(quantity) * ?, SUM(price * quantity) * ? FROM order_items WHERE order_id = ? " +
+                     "GROUP BY product_id " +
+                     "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), revenue = revenue + VALUES(revenue)")) {
+            daily.setInt(1, sign);
+            daily.setInt(2, sign);
+            daily.setInt(3, orderId);
+            daily.executeUpdate();
+
+            product.setInt(1, sign);
+            product.setInt(2, sign);
+            product.setInt(3, orderId);
+            product.executeUpdate();
+        }
+    }
+
+    /** Rebuilds the aggregates from every delivered order, in one transaction. */
+    public void rebuild() throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+            try (Statement st = conn.createStatement();
+                 PreparedStatement meta = conn.prepareStatement(
+                         "REPLACE INTO sales_aggregates_meta(id, rebuilt_at, version) VALUES(1, NOW(), ?)")) {
+                st.executeUpdate("DELETE FROM sales_product_daily");
+                st.executeUpdate("DELETE FROM sales_product");
+                st.executeUpdate("""
+                    INSERT INTO sales_product_daily(day, product_id, quantity, revenue)
+                    SELECT DATE(o.created_at), oi.product_id, SUM(oi.quantity), SUM(oi.price * oi.quantity)
+                    FROM order_items oi
+                    JOIN orders o ON o.id = oi.order_id
+                    WHERE o.status='DELIVERED'
+                    GROUP BY DATE(o.created_at), oi.product_id
+                """);
+                st.executeUpdate("""
+                    INSERT INTO sales_product(product_id, quantity, revenue)
+                    SELECT oi.product_id, SUM(oi.quantity), SUM(oi.price * oi.quantity)
+                    FROM order_items oi
+                    JOIN orders o ON o.id = oi.order_id
+                    WHERE o.status='DELIVERED'
+                    GROUP BY oi.product_id
+                """);
+                meta.setInt(1, VERSION);
+                meta.executeUpdate();
+                conn.commit();
+                backfilled = true;
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /** Backfills the aggregates from history the first time they are read on a database. */
+    public void ensureBackfilled() throws SQLException {
+        if (backfilled) return;
+        synchronized (SalesAggregateDao.class) {
+            if (backfilled) return;
+            boolean done;
+            try (Connection conn = DBConnection.getConnection();
+                 Statement st = conn.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT version FROM sales_aggregates_meta WHERE id = 1")) {
+                done = rs.next() && rs.getInt(1) >= VERSION;
+            }
+            if (done) backfilled = true;
+            else rebuild();
+        }
+    }
+}
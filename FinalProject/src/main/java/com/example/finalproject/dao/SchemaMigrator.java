@@ -0,0 +1,58 @@
+package com.example.finalproject.dao;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Applies db/schema.sql (indexes and helper tables) on startup.
+ * Statements are idempotent: "already exists" errors are skipped.
+ */
+public class SchemaMigrator {
+
+    private static final String SCHEMA = "/com/example/finalproject/db/schema.sql";
+
+    // table exists, duplicate column, duplicate key name, duplicate foreign key
+    private static final Set<Integer> ALREADY_APPLIED = Set.of(1050, 1060, 1061, 1826);
+
+    public static void migrate() {
+        String script;
+        try (InputStream in = SchemaMigrator.class.getResourceAsStream(SCHEMA)) {
+            if (in == null) return;
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        try (Connection conn = DBConnection.getConnection();
+             Statement st = conn.createStatement()) {
+            for (String sql : split(script)) {
+                try {
+                    st.execute(sql);
+                } catch (SQLException e) {
+                    if (!ALREADY_APPLIED.contains(e.getErrorCode())) e.printStackTrace();
+                }
+            }
+        } catch (SQLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static List<String> split(String script) {
+        StringBuilder cleaned = new StringBuilder();
+        for (String line : script.split("\\R")) {
+            if (!line.trim().startsWith("--")) cleaned.append(line).append('\n');
+        }
+        return Arrays.stream(cleaned.toString().split(";"))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+    }
+}
@@ -8,9 +8,15 @@ import java.util.List;
 public class ShippingDao {
 
     public void createShipping(int orderId, String address) throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            createShipping(conn, orderId, address);
+        }
+    }
+
+    /** Same, on the caller's connection, e.g. inside the order's transaction. */
+    public void createShipping(Connection conn, int orderId, String address) throws SQLException {
         String sql = "INSERT INTO shipping(order_id, address, status, shipped_at) VALUES(?,?, 'Pending', NOW())";
-        try (Connection conn = DBConnection.getInstance();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, orderId);
             ps.setString(2, address);
             ps.executeUpdate();
@@ -23,7 +29,7 @@ public class ShippingDao {
             case "In Transit" -> "UPDATE shipping SET status='In Transit' WHERE order_id=?";
             default -> "UPDATE shipping SET status='Pending' WHERE order_id=?";
         };
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, orderId);
             ps.executeUpdate();
@@ -32,7 +38,7 @@ public class ShippingDao {
 
     public Shipping findByOrder(int orderId) {
         String sql = "SELECT * FROM shipping WHERE order_id=?";
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, orderId);
             ResultSet rs = ps.executeQuery();
@@ -55,7 +61,7 @@ public class ShippingDao {
     public List<Shipping> findAll() {
         List<Shipping> list = new ArrayList<>();
         String sql = "SELECT * FROM shipping ORDER BY shipped_at DESC";
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              Statement st = conn.createStatement();
              ResultSet rs = st.executeQuery(sql)) {
             while (rs.next()) {
@@ -0,0 +1,206 @@
+package com.example.finalproject.dao;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of prepared statements for one physical connection.
+ * Callers get a wrapper whose close() resets the statement (parameters, batch, open results,
+ * fetch size, max rows, query timeout) and keeps it for the next borrower that prepares the
+ * same SQL, so the driver/server never re-parses it. Each checkout is a new lease; once the
+ * statement is checked in, the old wrapper is closed for good even if it was never closed.
+ */
+class StatementCache {
+
+    private final Connection raw;
+    private final int maxSize;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LinkedHashMap<String, Entry> entries;
+
+    StatementCache(Connection raw, int maxSize, LongAdder hits, LongAdder misses) {
+        this.raw = raw;
+        this.maxSize = maxSize;
+        this.hits = hits;
+        this.misses = misses;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= StatementCache.this.maxSize) return false;
+                Entry e = eldest.getValue();
+                e.evicted = true;
+                if (!e.inUse) e.closeQuietly();
+                return true;
+            }
+        };
+    }
+
+    static boolean isCacheable(Method method, Object[] args) {
+        if (!method.getName().equals("prepareStatement") || args == null) return false;
+        // prepareStatement(sql) and prepareStatement(sql, autoGeneratedKeys)
+        return args.length == 1 || (args.length == 2 && args[1] instanceof Integer);
+    }
+
+    /**
+     * Returns a cached statement for the call, or null when the same SQL is already
+     * checked out on this connection (the caller then prepares an uncached one).
+     */
+    synchronized PreparedStatement checkout(Connection owner, Object[] args) throws SQLException {
+        String sql = (String) args[0];
+        int keys = args.length == 2 ? (Integer) args[1] : -1;
+        String key = keys + "|" + sql;
+
+        Entry e = entries.get(key);
+        if (e != null) {
+            if (e.inUse) return null;
+            hits.increment();
+        } else {
+            misses.increment();
+            PreparedStatement ps = keys == -1 ? raw.prepareStatement(sql) : raw.prepareStatement(sql, keys);
+            e = new Entry(ps);
+            entries.put(key, e);
+        }
+        e.inUse = true;
+        return e.wrap(owner);
+    }
+
+    /** Returns every statement the current borrower forgot to close. */
+    synchronized void checkinAll() {
+        for (Entry e : new ArrayList<>(entries.values())) {
+            if (e.inUse) e.checkin();
+        }
+    }
+
+    // Whether the lease still holds its entry; false once the entry was checked in
+    private synchronized boolean isCurrent(Lease lease) {
+        return lease.entry.inUse && lease.entry.generation == lease.generation;
+    }
+
+    // Closes a lease; a stale one (already checked in by checkinAll) is left alone
+    private synchronized void checkin(Lease lease) {
+        if (lease.entry.generation == lease.generation) lease.entry.checkin();
+    }
+
+    // A result of a stale lease is closed at once instead of being left to the next borrower
+    private synchronized void track(Lease lease, ResultSet rs) throws SQLException {
+        if (lease.entry.generation == lease.generation) lease.entry.results.add(rs);
+        else rs.close();
+    }
+
+    private final class Entry {
+        final PreparedStatement ps;
+        final List<ResultSet> results = new ArrayList<>();
+        // Settings as prepared, restored on check-in so they do not carry over to the next borrower
+        final int fetchSize;
+        final int maxRows;
+        final int queryTimeout;
+        boolean inUse;
+        boolean evicted;
+        // Bumped on every check-in; a lease of an older generation is stale
+        int generation;
+
+        Entry(PreparedStatement ps) throws SQLException {
+            this.ps = ps;
+            this.fetchSize = ps.getFetchSize();
+            this.maxRows = ps.getMaxRows();
+            this.queryTimeout = ps.getQueryTimeout();
+        }
+
+        PreparedStatement wrap(Connection owner) {
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    StatementCache.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new Lease(this, generation, owner));
+        }
+
+        void checkin() {
+            if (!inUse) return;
+            inUse = false;
+            generation++;
+            for (ResultSet rs : results) {
+                try {
+                    rs.close();
+                } catch (SQLException ignored) {
+                }
+            }
+            results.clear();
+            try {
+                ps.clearParameters();
+                ps.clearBatch();
+                if (ps.getFetchSize() != fetchSize) ps.setFetchSize(fetchSize);
+                if (ps.getMaxRows() != maxRows) ps.setMaxRows(maxRows);
+                if (ps.getQueryTimeout() != queryTimeout) ps.setQueryTimeout(queryTimeout);
+            } catch (SQLException ex) {
+                evicted = true;
+                entries.values().remove(this);
+            }
+            if (evicted) closeQuietly();
+        }
+
+        void closeQuietly() {
+            try {
+                ps.close();
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    /** One checkout of a cached statement; stale after close() or once the entry was checked in. */
+    private final class Lease implements InvocationHandler {
+        private final Entry entry;
+        private final int generation;
+        private final Connection owner;
+
+        Lease(Entry entry, int generation, Connection owner) {
+            this.entry = entry;
+            this.generation = generation;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close" -> {
+                    checkin(this);
+                    return null;
+                }
+                case "isClosed" -> {
+                    return !isCurrent(this);
+                }
+                case "getConnection" -> {
+                    return owner;
+                }
+                case "equals" -> {
+                    return proxy == args[0];
+                }
+                case "hashCode" -> {
+                    return System.identityHashCode(proxy);
+                }
+                case "toString" -> {
+                    return "CachedStatement[" + entry.ps + "]";
+                }
+            }
+
+            if (!isCurrent(this)) throw new SQLException("Statement is closed");
+            Object result;
+            try {
+                result = method.invoke(entry.ps, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            if (result instanceof ResultSet rs) track(this, rs);
+            return result;
+        }
+    }
+}
@@ -1,13 +1,14 @@
 package com.example.finalproject.dao;
 
 import com.example.finalproject.model.User;
+import com.example.finalproject.security.PasswordHasher;
 import java.sql.*;
 import java.util.Optional;
 
 public class UserDao {
 
     public Optional<User> findByEmail(String email) {
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement("SELECT * FROM users WHERE email=?")) {
             ps.setString(1, email);
             ResultSet rs = ps.executeQuery();
@@ -20,8 +21,22 @@ public class UserDao {
         return Optional.empty();
     }
 
+    public Optional<User> findById(int id) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT * FROM users WHERE id=?")) {
+            ps.setInt(1, id);
+            ResultSet rs = ps.executeQuery();
+            if (rs.next()) {
+                return Optional.of(mapUser(rs));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return Optional.empty();
+    }
+
     public void save(User user) {
-        try (Connection conn = DBConnection.getInstance()) {
+        try (Connection conn = DBConnection.getConnection()) {
             PreparedStatement ps = conn.prepareStatement(
                     "INSERT INTO users(name,email,password_hash,role,address) VALUES(?,?,?,?,?)");
             ps.setString(1, user.getName());
@@ -36,7 +51,7 @@ public class UserDao {
     }
 
     public boolean emailExists(String email) {
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement("SELECT id FROM users WHERE email=?")) {
             ps.setString(1, email);
             ResultSet rs = ps.executeQuery();
@@ -47,12 +62,43 @@ public class UserDao {
         }
     }
 
-    public void updatePassword(String email, String newPassword) {
-        try (Connection conn = DBConnection.getInstance();
+    /** Sets a new password; false when no account has the email or the update failed. */
+    public boolean updatePassword(String email, String newPassword) {
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement("UPDATE users SET password_hash=? WHERE email=?")) {
-            String hashed = org.mindrot.jbcrypt.BCrypt.hashpw(newPassword, org.mindrot.jbcrypt.BCrypt.gensalt());
+            String hashed = PasswordHasher.hash(newPassword);
             ps.setString(1, hashed);
             ps.setString(2, email);
+            return ps.executeUpdate() > 0;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /** Updates name, email and address, and the password hash too unless it is null; false when no row changed. */
+    public boolean updateProfile(int userId, String name, String email, String address, String passwordHash)
+            throws SQLException {
+        String sql = passwordHash == null
+                ? "UPDATE users SET name=?, email=?, address=? WHERE id=?"
+                : "UPDATE users SET name=?, email=?, address=?, password_hash=? WHERE id=?";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            int idx = 1;
+            ps.setString(idx++, name);
+            ps.setString(idx++, email);
+            ps.setString(idx++, address);
+            if (passwordHash != null) ps.setString(idx++, passwordHash);
+            ps.setInt(idx, userId);
+            return ps.executeUpdate() > 0;
+        }
+    }
+
+    public void updatePasswordHash(int userId, String hash) {
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement("UPDATE users SET password_hash=? WHERE id=?")) {
+            ps.setString(1, hash);
+            ps.setInt(2, userId);
             ps.executeUpdate();
         } catch (Exception e) {
             e.printStackTrace();
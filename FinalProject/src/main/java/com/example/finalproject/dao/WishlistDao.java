@@ -9,7 +9,7 @@ public class WishlistDao {
 
     public void addToWishlist(int userId, int productId) {
         String sql = "INSERT IGNORE INTO wishlist(user_id, product_id) VALUES(?, ?)";
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, userId);
             ps.setInt(2, productId);
@@ -21,7 +21,7 @@ public class WishlistDao {
 
     public void removeFromWishlist(int userId, int productId) {
         String sql = "DELETE FROM wishlist WHERE user_id=? AND product_id=?";
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, userId);
             ps.setInt(2, productId);
@@ -33,7 +33,7 @@ public class WishlistDao {
 
     public boolean isInWishlist(int userId, int productId) {
         String sql = "SELECT 1 FROM wishlist WHERE user_id=? AND product_id=?";
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, userId);
             ps.setInt(2, productId);
@@ -45,6 +45,22 @@ public class WishlistDao {
         return false;
     }
 
+    public List<Integer> getWishlistProductIds(int userId) {
+        List<Integer> ids = new ArrayList<>();
+        String sql = "SELECT product_id FROM wishlist WHERE user_id=? ORDER BY created_at DESC";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setInt(1, userId);
+            ResultSet rs = ps.executeQuery();
+            while (rs.next()) {
+                ids.add(rs.getInt("product_id"));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return ids;
+    }
+
     public List<Product> getUserWishlist(int userId) {
         List<Product> list = new ArrayList<>();
         String sql = """
@@ -53,7 +69,7 @@ public class WishlistDao {
             WHERE w.user_id=?
             ORDER BY w.created_at DESC
         """;
-        try (Connection conn = DBConnection.getInstance();
+        try (Connection conn = DBConnection.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
             ps.setInt(1, userId);
             ResultSet rs = ps.executeQuery();
@@ -0,0 +1,20 @@
+package com.example.finalproject.model;
+
+/** One product in a user's cart; the unit price is fixed when the product is first added. */
+public class CartLine {
+    private final Product product;
+    private final int quantity;
+    private final double unitPrice;
+
+    public CartLine(Product product, int quantity, double unitPrice) {
+        this.product = product;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+    }
+
+    public Product getProduct() { return product; }
+    public int getProductId() { return product.getId(); }
+    public int getQuantity() { return quantity; }
+    public double getUnitPrice() { return unitPrice; }
+    public double getLineTotal() { return unitPrice * quantity; }
+}
@@ -10,6 +10,7 @@ public class Order {
     private String status;
     private Timestamp createdAt;
     private List<OrderItem> items;
+    private String shippingAddress;   // checkout only: creates the shipping row with the order
 
     public Order() {}
     public Order(int id, int userId, double total, String status, Timestamp createdAt) {
@@ -30,4 +31,6 @@ public class Order {
     public void setCreatedAt(Timestamp createdAt) { this.createdAt = createdAt; }
     public List<OrderItem> getItems() { return items; }
     public void setItems(List<OrderItem> items) { this.items = items; }
+    public String getShippingAddress() { return shippingAddress; }
+    public void setShippingAddress(String shippingAddress) { this.shippingAddress = shippingAddress; }
 }
@@ -23,6 +23,11 @@ public class Product {
         this.stock = stock;
     }
 
+    public Product(Product other) {
+        this(other.id, other.name, other.category, other.price, other.description, other.imagePath, other.stock);
+        this.discount = other.discount;
+    }
+
     // --- Getters & Setters ---
     public int getId() { return id; }
     public void setId(int id) { this.id = id; }
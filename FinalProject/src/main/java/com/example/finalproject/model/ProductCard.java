@@ -0,0 +1,33 @@
+package com.example.finalproject.model;
+
+/**
+ * Everything the customer product grid shows for one product,
+ * loaded for a whole page at once by ProductDao.findCards.
+ */
+public class ProductCard {
+    private Product product;
+    private double averageRating;
+    private int reviewCount;
+    private boolean inWishlist;
+
+    public ProductCard() {}
+
+    public ProductCard(Product product, double averageRating, int reviewCount, boolean inWishlist) {
+        this.product = product;
+        this.averageRating = averageRating;
+        this.reviewCount = reviewCount;
+        this.inWishlist = inWishlist;
+    }
+
+    public Product getProduct() { return product; }
+    public void setProduct(Product product) { this.product = product; }
+
+    public double getAverageRating() { return averageRating; }
+    public void setAverageRating(double averageRating) { this.averageRating = averageRating; }
+
+    public int getReviewCount() { return reviewCount; }
+    public void setReviewCount(int reviewCount) { this.reviewCount = reviewCount; }
+
+    public boolean isInWishlist() { return inWishlist; }
+    public void setInWishlist(boolean inWishlist) { this.inWishlist = inWishlist; }
+}
@@ -0,0 +1,18 @@
+package com.example.finalproject.model;
+
+public enum ProductSort {
+    RELEVANCE("Best match"),   // search rank; newest first when there is no keyword
+    NEWEST("Newest"),
+    PRICE_LOW("Price: Low to High"),
+    PRICE_HIGH("Price: High to Low"),
+    NAME("Name");
+
+    private final String label;
+
+    ProductSort(String label) {
+        this.label = label;
+    }
+
+    @Override
+    public String toString() { return label; }
+}
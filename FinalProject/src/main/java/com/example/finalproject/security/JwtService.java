@@ -1,6 +1,7 @@
 package com.example.finalproject.security;
 
 import com.auth0.jwt.JWT;
+import com.auth0.jwt.JWTVerifier;
 import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.auth0.jwt.exceptions.TokenExpiredException;
@@ -10,6 +11,9 @@ import java.util.Date;
 public class JwtService {
     private static final String SECRET = "your-secret-key";
     private static final long EXPIRATION_TIME = 1000L * 60 * 60 * 24; // 24h
+    // Both are immutable and thread-safe; building them per call was measurable on every screen
+    private static final Algorithm ALGORITHM = Algorithm.HMAC256(SECRET);
+    private static final JWTVerifier VERIFIER = JWT.require(ALGORITHM).build();
 
     public static String issueToken(int userId, String role, String email) {
         return JWT.create()
@@ -18,7 +22,7 @@ public class JwtService {
                 .withClaim("email", email)
                 .withIssuedAt(new Date())
                 .withExpiresAt(new Date(System.currentTimeMillis() + EXPIRATION_TIME))
-                .sign(Algorithm.HMAC256(SECRET));
+                .sign(ALGORITHM);
     }
 
     public static String issueToken(int userId, String role) {
@@ -26,7 +30,7 @@ public class JwtService {
     }
 
     public static DecodedJWT verify(String token) {
-        return JWT.require(Algorithm.HMAC256(SECRET)).build().verify(token); // throws if expired/invalid
+        return VERIFIER.verify(token); // throws if expired/invalid
     }
 
     public static boolean isExpired(String token) {
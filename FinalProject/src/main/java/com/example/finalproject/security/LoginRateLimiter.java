@@ -0,0 +1,180 @@
+package com.example.finalproject.security;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Throttles login attempts before they reach the database or BCrypt.
+ *
+ * - Token buckets per email (-Dlogin.email.burst=5, refilled at -Dlogin.email.perMinute=5)
+ *   and per client (-Dlogin.client.burst=20, -Dlogin.client.perMinute=20).
+ * - -Dlogin.maxFailures (default 5) failed attempts in a row lock the email out for
+ *   -Dlogin.lockoutSeconds (default 30), doubling with every further lockout up to 15 minutes.
+ * - A password that already failed for an email in the last 5 minutes fails again at once.
+ *   Only an HMAC of it (with a key made at startup) is kept, never the password.
+ *
+ * All tables are in memory and bounded (-Dlogin.maxTracked, default 10000 keys each, LRU).
+ */
+public class LoginRateLimiter {
+    private static final LoginRateLimiter instance = new LoginRateLimiter();
+
+    /** Identifies this app instance when the caller has no better client key. */
+    public static final String LOCAL_CLIENT = System.getProperty("user.name", "unknown") + "@local";
+
+    private static final long MAX_LOCKOUT_MS = 15 * 60_000L;
+    private static final long FAILED_CREDENTIAL_TTL_MS = 5 * 60_000L;
+
+    private final int emailBurst;
+    private final double emailPerMs;
+    private final int clientBurst;
+    private final double clientPerMs;
+    private final int maxFailures;
+    private final long lockoutMs;
+    private final int maxTracked;
+    private final LongSupplier clock;
+
+    private final Map<String, Bucket> emailBuckets = lru();
+    private final Map<String, Bucket> clientBuckets = lru();
+    private final Map<String, Lockout> lockouts = lru();
+    private final Map<String, Map<String, Long>> failedCredentials = lru();   // email -> fingerprint -> expires at
+    private final Mac fingerprint;
+
+    private LoginRateLimiter() {
+        this(Integer.getInteger("login.email.burst", 5),
+                Integer.getInteger("login.email.perMinute", 5),
+                Integer.getInteger("login.client.burst", 20),
+                Integer.getInteger("login.client.perMinute", 20),
+                Integer.getInteger("login.maxFailures", 5),
+                Long.getLong("login.lockoutSeconds", 30L),
+                Integer.getInteger("login.maxTracked", 10_000),
+                System::currentTimeMillis);
+    }
+
+    LoginRateLimiter(int emailBurst, int emailPerMinute, int clientBurst, int clientPerMinute,
+                     int maxFailures, long lockoutSeconds, int maxTracked, LongSupplier clock) {
+        this.emailBurst = emailBurst;
+        this.emailPerMs = emailPerMinute / 60_000.0;
+        this.clientBurst = clientBurst;
+        this.clientPerMs = clientPerMinute / 60_000.0;
+        this.maxFailures = maxFailures;
+        this.lockoutMs = lockoutSeconds * 1000;
+        this.maxTracked = maxTracked;
+        this.clock = clock;
+
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        try {
+            fingerprint = Mac.getInstance("HmacSHA256");
+            fingerprint.init(new SecretKeySpec(key, "HmacSHA256"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static LoginRateLimiter getInstance() {
+        return instance;
+    }
+
+    /** Takes one attempt from the email's and the client's budget, or throws if either is spent or locked out. */
+    public synchronized void acquire(String email, String client) throws LoginThrottledException {
+        long now = clock.getAsLong();
+        String key = key(email);
+
+        Lockout lockout = lockouts.get(key);
+        if (lockout != null && now < lockout.until) throw new LoginThrottledException(lockout.until - now);
+
+        Bucket byEmail = emailBuckets.computeIfAbsent(key, k -> new Bucket(emailBurst, now));
+        Bucket byClient = clientBuckets.computeIfAbsent(client, k -> new Bucket(clientBurst, now));
+        byEmail.refill(now, emailBurst, emailPerMs);
+        byClient.refill(now, clientBurst, clientPerMs);
+        if (byEmail.tokens < 1) throw new LoginThrottledException((long) ((1 - byEmail.tokens) / emailPerMs));
+        if (byClient.tokens < 1) throw new LoginThrottledException((long) ((1 - byClient.tokens) / clientPerMs));
+        byEmail.tokens--;
+        byClient.tokens--;
+    }
+
+    /** True when this exact password already failed for the email recently; skip the DB and BCrypt. */
+    public synchronized boolean isKnownFailure(String email, String password) {
+        Map<String, Long> failed = failedCredentials.get(key(email));
+        if (failed == null) return false;
+        Long expiresAt = failed.get(fingerprint(email, password));
+        return expiresAt != null && clock.getAsLong() < expiresAt;
+    }
+
+    public synchronized void onFailure(String email, String password) {
+        long now = clock.getAsLong();
+        String key = key(email);
+
+        Map<String, Long> failed = failedCredentials.computeIfAbsent(key, k -> new HashMap<>());
+        failed.values().removeIf(expiresAt -> expiresAt <= now);
+        failed.put(fingerprint(email, password), now + FAILED_CREDENTIAL_TTL_MS);
+
+        Lockout lockout = lockouts.computeIfAbsent(key, k -> new Lockout());
+        if (++lockout.failures >= maxFailures) {
+            // Exponential backoff: 30s, 1m, 2m, 4m ... up to 15 minutes
+            lockout.level = Math.min(lockout.level + 1, 20);
+            lockout.until = now + Math.min(MAX_LOCKOUT_MS, lockoutMs << (lockout.level - 1));
+            lockout.failures = 0;
+        }
+    }
+
+    /** A successful login clears the email's failures and lockout history. */
+    public synchronized void onSuccess(String email) {
+        reset(email);
+    }
+
+    /** Forgets what is known about the email, e.g. after its password was changed. */
+    public synchronized void reset(String email) {
+        String key = key(email);
+        lockouts.remove(key);
+        failedCredentials.remove(key);
+    }
+
+    private String fingerprint(String email, String password) {
+        byte[] mac = fingerprint.doFinal((key(email) + '\0' + password).getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(mac);
+    }
+
+    private static String key(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private <V> Map<String, V> lru() {
+        return new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxTracked;
+            }
+        };
+    }
+
+    private static final class Bucket {
+        double tokens;
+        long updatedAt;
+
+        Bucket(int burst, long now) {
+            this.tokens = burst;
+            this.updatedAt = now;
+        }
+
+        void refill(long now, int burst, double perMs) {
+            tokens = Math.min(burst, tokens + (now - updatedAt) * perMs);
+            updatedAt = now;
+        }
+    }
+
+    private static final class Lockout {
+        int failures;
+        int level;
+        long until;
+    }
+}
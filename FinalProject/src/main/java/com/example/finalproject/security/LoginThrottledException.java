@@ -0,0 +1,15 @@
+package com.example.finalproject.security;
+
+/** A login attempt was refused by LoginRateLimiter before the credentials were checked. */
+public class LoginThrottledException extends Exception {
+    private final long retryAfterMillis;
+
+    public LoginThrottledException(long retryAfterMillis) {
+        super("Too many login attempts. Please try again in " + Math.max(1, (retryAfterMillis + 999) / 1000) + " seconds.");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
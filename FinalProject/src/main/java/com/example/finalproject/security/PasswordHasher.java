@@ -2,12 +2,119 @@ package com.example.finalproject.security;
 
 import org.mindrot.jbcrypt.BCrypt;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * BCrypt hashing on a small bounded pool: -Dpassword.threads (default half the cores) workers
+ * and -Dpassword.queue (default 32) waiting jobs. Beyond that new jobs are rejected, so a
+ * login flood cannot take every core. The blocking methods run on the same pool.
+ *
+ * The cost factor comes from calibrate(), which picks the highest cost whose hash takes at most
+ * -Dpassword.targetMs (default 250) on this machine; -Dpassword.cost fixes it. Neither goes below 12.
+ * Hashes made with a lower cost are upgraded on the next successful login (needsRehash).
+ */
 public class PasswordHasher {
+    private static final int MIN_COST = 12;
+    private static final int MAX_COST = 16;
+
+    private static final int THREADS =
+            Integer.getInteger("password.threads", Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    private static final ThreadPoolExecutor POOL = new ThreadPoolExecutor(
+            THREADS, THREADS, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Integer.getInteger("password.queue", 32)),
+            Thread.ofPlatform().name("password-hasher-", 1).daemon().factory());
+
+    private static final Integer FIXED_COST = Integer.getInteger("password.cost");
+    private static volatile int cost = FIXED_COST != null ? Math.max(MIN_COST, FIXED_COST) : MIN_COST;
+
+    static {
+        POOL.allowCoreThreadTimeOut(true);
+    }
+
+    public static CompletableFuture<String> hashAsync(String plainPassword) {
+        int c = cost;
+        return submit(() -> BCrypt.hashpw(plainPassword, BCrypt.gensalt(c)));
+    }
+
+    public static CompletableFuture<Boolean> verifyAsync(String plainPassword, String hashedPassword) {
+        return submit(() -> BCrypt.checkpw(plainPassword, hashedPassword));
+    }
+
     public static String hash(String plainPassword) {
-        return BCrypt.hashpw(plainPassword, BCrypt.gensalt(12));
+        return await(hashAsync(plainPassword));
     }
 
     public static boolean verify(String plainPassword, String hashedPassword) {
-        return BCrypt.checkpw(plainPassword, hashedPassword);
+        return await(verifyAsync(plainPassword, hashedPassword));
+    }
+
+    /** True when the hash was made with a lower cost than the current one. */
+    public static boolean needsRehash(String hashedPassword) {
+        // $2a$12$<salt+hash>
+        if (hashedPassword == null || hashedPassword.length() < 7 || hashedPassword.charAt(3) != '$') return false;
+        try {
+            return Integer.parseInt(hashedPassword.substring(4, 6)) < cost;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    public static int getCost() {
+        return cost;
+    }
+
+    /**
+     * Measures BCrypt on this machine and sets the cost to the highest one within targetMs.
+     * Each cost step doubles the time, so one measurement at MIN_COST is enough.
+     * Does nothing when -Dpassword.cost is set.
+     */
+    public static int calibrate(long targetMs) {
+        if (FIXED_COST != null) return cost;
+        BCrypt.hashpw("calibration", BCrypt.gensalt(MIN_COST));   // warm up
+        long start = System.nanoTime();
+        BCrypt.hashpw("calibration", BCrypt.gensalt(MIN_COST));
+        double ms = (System.nanoTime() - start) / 1e6;
+
+        int c = MIN_COST;
+        while (c < MAX_COST && ms * 2 <= targetMs) {
+            ms *= 2;
+            c++;
+        }
+        cost = c;
+        return c;
+    }
+
+    /** Calibrates in the background with -Dpassword.targetMs; hashing meanwhile uses the current cost. */
+    public static void calibrateAsync() {
+        long target = Long.getLong("password.targetMs", 250L);
+        Thread.ofPlatform().daemon().name("password-calibration").start(() -> calibrate(target));
+    }
+
+    private static <T> CompletableFuture<T> submit(Supplier<T> work) {
+        try {
+            return CompletableFuture.supplyAsync(work, POOL);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Too many sign-in attempts right now, please try again."));
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) throw re;
+            throw new CompletionException(e.getCause());
+        }
     }
 }
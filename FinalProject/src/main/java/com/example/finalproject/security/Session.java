@@ -1,28 +1,84 @@
 package com.example.finalproject.security;
 
+import com.auth0.jwt.interfaces.DecodedJWT;
+
+/**
+ * The signed-in user. The token is verified once when it is first read and its claims are
+ * kept as an immutable principal until the token changes or expires, so reading the user
+ * id on every card or screen does not re-run the HMAC check.
+ */
 public class Session {
-    private static String token;
+    private static volatile String token;
+    private static volatile Principal principal;
+
+    public static void setToken(String t) {
+        token = t;
+        principal = null;
+    }
 
-    public static void setToken(String t) { token = t; }
     public static String getToken() { return token; }
-    public static void clear() { token = null; }
+
+    public static void clear() {
+        token = null;
+        principal = null;
+    }
 
     public static boolean isAuthenticated() {
         if (token == null) return false;
-        boolean expiredOrInvalid = JwtService.isExpired(token);
-        if (expiredOrInvalid) token = null;
+        boolean expiredOrInvalid = principal() == null;
+        if (expiredOrInvalid) clear();
         return !expiredOrInvalid;
     }
 
     public static int getUserId() {
-        return token == null ? -1 : JwtService.getUserId(token);
+        Principal p = principal();
+        return p == null ? -1 : p.userId;
     }
 
     public static String getUserRole() {
-        return token == null ? null : JwtService.getRole(token);
+        Principal p = principal();
+        return p == null ? null : p.role;
     }
 
     public static String getUserEmail() {
-        return token == null ? null : JwtService.getEmail(token);
+        Principal p = principal();
+        return p == null ? null : p.email;
+    }
+
+    // The cached claims of the current token, verified again only once it changed or expired
+    private static Principal principal() {
+        String t = token;
+        if (t == null) return null;
+        Principal p = principal;
+        if (p != null && p.token.equals(t) && System.currentTimeMillis() < p.expiresAt) return p;
+
+        try {
+            DecodedJWT jwt = JwtService.verify(t);
+            long expiresAt = jwt.getExpiresAt() == null ? 0 : jwt.getExpiresAt().getTime();
+            p = new Principal(t, jwt.getClaim("userId").asInt(), jwt.getClaim("role").asString(),
+                    jwt.getClaim("email").asString(), expiresAt);
+        } catch (Exception e) {
+            // invalid or expired token
+            return null;
+        }
+        if (System.currentTimeMillis() >= p.expiresAt) return null;
+        if (t.equals(token)) principal = p;
+        return p;
+    }
+
+    private static final class Principal {
+        final String token;
+        final int userId;
+        final String role;
+        final String email;
+        final long expiresAt;
+
+        Principal(String token, Integer userId, String role, String email, long expiresAt) {
+            this.token = token;
+            this.userId = userId == null ? -1 : userId;
+            this.role = role;
+            this.email = email;
+            this.expiresAt = expiresAt;
+        }
     }
 }
@@ -3,12 +3,23 @@ package com.example.finalproject.service;
 import com.example.finalproject.dao.UserDao;
 import com.example.finalproject.model.User;
 import com.example.finalproject.security.JwtService;
+import com.example.finalproject.security.LoginRateLimiter;
 import com.example.finalproject.security.PasswordHasher;
 
 import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
 public class AuthService {
+    // Background password-hash upgrades; their DB writes run here, not on a hasher thread
+    private static final Executor REHASH_WRITER =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("password-rehash-", 0).factory());
+
+    // Same answer for an unknown email and a wrong password, so sign-in does not reveal accounts
+    private static final String INVALID_CREDENTIALS = "Invalid email or password!";
+
     private final UserDao userDao = new UserDao();
+    private final LoginRateLimiter limiter = LoginRateLimiter.getInstance();
 
     // Register new customer
     public String register(String name, String email, String password, String address) throws Exception {
@@ -25,16 +36,64 @@ public class AuthService {
 
     // Login
     public String login(String email, String password) throws Exception {
+        return login(email, password, LoginRateLimiter.LOCAL_CLIENT);
+    }
+
+    // Login; throttled per email and per client before the DB or BCrypt are touched
+    public String login(String email, String password, String client) throws Exception {
+        limiter.acquire(email, client);
+        if (limiter.isKnownFailure(email, password)) {
+            throw new Exception(INVALID_CREDENTIALS);
+        }
+
         Optional<User> optUser = userDao.findByEmail(email);
         if (optUser.isEmpty()) {
-            throw new Exception("User not found!");
+            limiter.onFailure(email, password);
+            throw new Exception(INVALID_CREDENTIALS);
         }
 
         User user = optUser.get();
         if (!PasswordHasher.verify(password, user.getPasswordHash())) {
-            throw new Exception("Invalid password!");
+            limiter.onFailure(email, password);
+            throw new Exception(INVALID_CREDENTIALS);
+        }
+        limiter.onSuccess(email);
+
+        // Upgrade hashes made with an older, cheaper cost while we have the plain password
+        if (PasswordHasher.needsRehash(user.getPasswordHash())) {
+            PasswordHasher.hashAsync(password)
+                    .thenAcceptAsync(hash -> userDao.updatePasswordHash(user.getId(), hash), REHASH_WRITER)
+                    .exceptionally(e -> {
+                        e.printStackTrace();
+                        return null;
+                    });
         }
 
-        return JwtService.issueToken(user.getId(), user.getRole());
+        return JwtService.issueToken(user.getId(), user.getRole(), user.getEmail());
+    }
+
+    // Password reset (forgot password); earlier failed attempts may be the right password now
+    public void resetPassword(String email, String newPassword) throws Exception {
+        if (!userDao.updatePassword(email, newPassword)) {
+            throw new Exception("Password could not be reset.");
+        }
+        limiter.reset(email);
+    }
+
+    // Profile change of a signed-in user, confirmed with the current password; false when nothing changed
+    public boolean updateProfile(int userId, String oldPassword, String name, String email, String address,
+                                 String newPassword) throws Exception {
+        User user = userDao.findById(userId).orElseThrow(() -> new Exception("User not found."));
+        if (!PasswordHasher.verify(oldPassword, user.getPasswordHash())) {
+            throw new Exception("Incorrect old password.");
+        }
+
+        String hashed = newPassword.isEmpty() ? null : PasswordHasher.hash(newPassword);
+        boolean updated = userDao.updateProfile(userId, name, email, address, hashed);
+        if (updated && hashed != null) {
+            limiter.reset(user.getEmail());
+            limiter.reset(email);
+        }
+        return updated;
     }
 }
@@ -1,39 +1,138 @@
 package com.example.finalproject.service;
 
+import com.example.finalproject.model.CartLine;
 import com.example.finalproject.model.Product;
+
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Shopping carts of every signed-in user, keyed by user id and product id.
+ * Each cart keeps its total in cents as lines change, so reading it is O(1).
+ * With -Dcart.persist=true (default) changes are saved to cart_items in the background
+ * through CartStore and restored at login.
+ */
 public class CartService {
-    private static CartService instance;
-    private final Map<Product, Integer> items = new LinkedHashMap<>();
+    private static final CartService instance = new CartService(
+            Boolean.parseBoolean(System.getProperty("cart.persist", "true")));
+
+    private final ConcurrentHashMap<Integer, Cart> carts = new ConcurrentHashMap<>();
+    private final CartStore store = CartStore.getInstance();
+    private final boolean persist;
 
-    private CartService() {}
+    private CartService(boolean persist) {
+        this.persist = persist;
+    }
 
     public static CartService getInstance() {
-        if (instance == null) instance = new CartService();
         return instance;
     }
 
-    public Map<Product, Integer> getItems() {
-        return items;
+    /** Adds qty units at the product's current effective price (kept if the line already exists). */
+    public void addItem(int userId, Product p, int qty) {
+        int quantity = cart(userId).add(p, qty, p.getEffectivePrice());
+        if (persist) store.setLine(userId, p.getId(), quantity);
+    }
+
+    public void addItem(int userId, Product p) {
+        addItem(userId, p, 1);
+    }
+
+    public void removeItem(int userId, int productId) {
+        Cart cart = carts.get(userId);
+        if (cart != null && cart.remove(productId) && persist) store.removeLine(userId, productId);
+    }
+
+    public void clear(int userId) {
+        carts.remove(userId);
+        if (persist) store.clear(userId);
+    }
+
+    /** Snapshot of the lines in the order they were added. */
+    public List<CartLine> getLines(int userId) {
+        Cart cart = carts.get(userId);
+        return cart == null ? List.of() : cart.lines();
+    }
+
+    public int getQuantity(int userId, int productId) {
+        Cart cart = carts.get(userId);
+        return cart == null ? 0 : cart.quantity(productId);
+    }
+
+    public boolean isEmpty(int userId) {
+        Cart cart = carts.get(userId);
+        return cart == null || cart.isEmpty();
     }
 
-    public void addItem(Product p) {
-        items.put(p, items.getOrDefault(p, 0) + 1);
+    public double getTotal(int userId) {
+        Cart cart = carts.get(userId);
+        return cart == null ? 0 : cart.totalCents() / 100.0;
     }
 
-    public void removeItem(Product p) {
-        items.remove(p);
+    /** Reloads the user's saved cart at current prices; products that no longer exist are dropped. */
+    public void restore(int userId) {
+        if (!persist) return;
+        Map<Integer, Integer> saved = store.load(userId);
+        if (saved.isEmpty()) return;
+
+        // Lines added since login are newer than the saved copy and are kept as they are
+        Cart cart = cart(userId);
+        for (Product p : new ProductService().getByIds(new ArrayList<>(saved.keySet()))) {
+            cart.addIfAbsent(p, saved.get(p.getId()), p.getEffectivePrice());
+        }
     }
 
-    public void clear() {
-        items.clear();
+    private Cart cart(int userId) {
+        return carts.computeIfAbsent(userId, id -> new Cart());
     }
 
-    public double getTotal() {
-        return items.entrySet().stream()
-                .mapToDouble(e -> e.getKey().getEffectivePrice() * e.getValue())
-                .sum();
+    // One user's lines; all changes keep totalCents in step (package-private for tests)
+    static final class Cart {
+        private final Map<Integer, CartLine> lines = new LinkedHashMap<>();
+        private long totalCents;
+
+        synchronized int add(Product p, int qty, double unitPrice) {
+            CartLine old = lines.get(p.getId());
+            double price = old != null ? old.getUnitPrice() : cents(unitPrice) / 100.0;
+            int quantity = (old != null ? old.getQuantity() : 0) + qty;
+            lines.put(p.getId(), new CartLine(p, quantity, price));
+            totalCents += cents(price) * qty;
+            return quantity;
+        }
+
+        synchronized void addIfAbsent(Product p, int qty, double unitPrice) {
+            if (!lines.containsKey(p.getId())) add(p, qty, unitPrice);
+        }
+
+        synchronized boolean remove(int productId) {
+            CartLine old = lines.remove(productId);
+            if (old == null) return false;
+            totalCents -= cents(old.getUnitPrice()) * old.getQuantity();
+            return true;
+        }
+
+        synchronized List<CartLine> lines() {
+            return new ArrayList<>(lines.values());
+        }
+
+        synchronized int quantity(int productId) {
+            return Optional.ofNullable(lines.get(productId)).map(CartLine::getQuantity).orElse(0);
+        }
+
+        synchronized boolean isEmpty() {
+            return lines.isEmpty();
+        }
+
+        synchronized long totalCents() {
+            return totalCents;
+        }
+
+        private static long cents(double price) {
+            return Math.round(price * 100);
+        }
     }
 }
@@ -0,0 +1,315 @@
+package com.example.finalproject.service;
+
+import com.example.finalproject.dao.CartDao;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind persistence for carts.
+ *
+ * Cart changes are appended to a local log (data/cart.log) and coalesced in memory per
+ * user and product; a background thread writes them to cart_items in one batched
+ * transaction every -Dcart.flushMs (default 2000) or once -Dcart.flushBatch (default 200)
+ * changes are pending. Add to Cart therefore never waits for MySQL.
+ *
+ * Flushing rotates the log to cart.log.flushing and deletes it after the commit. On startup
+ * both files are replayed and flushed, so changes survive a crash of the app. (The log is
+ * forced to disk at each flush; changes younger than that can be lost if the OS itself dies.)
+ */
+public class CartStore {
+    private static final CartStore instance = new CartStore(
+            Path.of(System.getProperty("cart.log.dir", "data")),
+            Long.getLong("cart.flushMs", 2000L),
+            Integer.getInteger("cart.flushBatch", 200));
+
+    private static final int REMOVED = 0;
+
+    private final CartDao dao;
+    private final Path log;
+    private final Path flushing;
+    private final long flushMs;
+    private final int flushBatch;
+
+    // Guarded by this: changes not yet in the database
+    private Map<Integer, Map<Integer, Integer>> pending = new HashMap<>();   // user -> product -> qty (0 = removed)
+    private Set<Integer> cleared = new HashSet<>();                          // users whose saved cart is dropped first
+    private int pendingEvents;
+    // Guarded by this: the batch being written, still overlaid on the database until it commits
+    private Map<Integer, Map<Integer, Integer>> inFlight = Map.of();
+    private Set<Integer> inFlightCleared = Set.of();
+    private int inFlightEvents;
+    private FileChannel out;
+
+    private final AtomicBoolean flushQueued = new AtomicBoolean();
+    private ScheduledExecutorService writer;
+
+    private CartStore(Path dir, long flushMs, int flushBatch) {
+        this(dir, flushMs, flushBatch, new CartDao());
+    }
+
+    CartStore(Path dir, long flushMs, int flushBatch, CartDao dao) {
+        this.dao = dao;
+        this.log = dir.resolve("cart.log");
+        this.flushing = dir.resolve("cart.log.flushing");
+        this.flushMs = flushMs;
+        this.flushBatch = flushBatch;
+    }
+
+    public static CartStore getInstance() {
+        return instance;
+    }
+
+    /** Replays what an earlier run had not flushed and starts the background writer. */
+    public synchronized void start() {
+        if (writer != null) return;
+        try {
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open cart log " + log, e);
+        }
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cart-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        writer.scheduleWithFixedDelay(this::flushQuietly, 0, flushMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Replays the logs and opens the current one; start() without the background writer
+    synchronized void open() throws IOException {
+        Files.createDirectories(log.getParent());
+        replay(flushing);
+        replay(log);
+        if (out == null) out = openLog();
+    }
+
+    /** Writes everything pending, stops the writer and closes the log. */
+    public void stop() {
+        ScheduledExecutorService w;
+        synchronized (this) {
+            w = writer;
+            writer = null;
+        }
+        if (w != null) {
+            w.shutdown();
+            try {
+                w.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushQuietly();
+        synchronized (this) {
+            closeLog();
+        }
+    }
+
+    /** The user's line for the product now holds qty units. */
+    public void setLine(int userId, int productId, int qty) {
+        record("S " + userId + " " + productId + " " + qty, () -> apply(userId, productId, qty));
+    }
+
+    public void removeLine(int userId, int productId) {
+        setLine(userId, productId, REMOVED);
+    }
+
+    public void clear(int userId) {
+        record("C " + userId, () -> applyClear(userId));
+    }
+
+    /**
+     * The user's saved cart including changes not flushed yet (productId -> qty).
+     * Used when restoring a cart at login.
+     */
+    public Map<Integer, Integer> load(int userId) {
+        Map<Integer, Integer> lines;
+        Map<Integer, Integer> overlay;
+        boolean wasCleared;
+        synchronized (this) {
+            overlay = new LinkedHashMap<>();
+            // A clear since the batch in flight drops its lines too
+            if (cleared.contains(userId)) {
+                wasCleared = true;
+            } else {
+                wasCleared = inFlightCleared.contains(userId);
+                overlay.putAll(inFlight.getOrDefault(userId, Map.of()));
+            }
+            overlay.putAll(pending.getOrDefault(userId, Map.of()));
+        }
+        lines = wasCleared ? new LinkedHashMap<>() : dao.loadCart(userId);
+        overlay.forEach((productId, qty) -> {
+            if (qty == REMOVED) lines.remove(productId);
+            else lines.put(productId, qty);
+        });
+        return lines;
+    }
+
+    private synchronized void record(String event, Runnable change) {
+        if (out == null && writer != null) {
+            // A failed rotation could not reopen the log; try again rather than stop logging
+            try {
+                out = openLog();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        if (out != null) {
+            try {
+                out.write(ByteBuffer.wrap((event + "\n").getBytes(StandardCharsets.UTF_8)));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        change.run();
+        if (++pendingEvents >= flushBatch && writer != null && flushQueued.compareAndSet(false, true)) {
+            writer.execute(this::flushQuietly);
+        }
+    }
+
+    private void apply(int userId, int productId, int qty) {
+        pending.computeIfAbsent(userId, id -> new LinkedHashMap<>()).put(productId, qty);
+    }
+
+    private void applyClear(int userId) {
+        pending.remove(userId);
+        cleared.add(userId);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // Kept in memory and in the log; retried on the next run
+            e.printStackTrace();
+        }
+    }
+
+    /** Writes every pending change to the database in one transaction. */
+    public void flush() throws IOException, SQLException {
+        flushQueued.set(false);
+        Map<Integer, Map<Integer, Integer>> lines;
+        Set<Integer> clears;
+        synchronized (this) {
+            if (pendingEvents == 0 && !Files.exists(flushing)) return;
+            // Swap only once the log is rotated: if that fails, nothing has left pending
+            rotateLog();
+            lines = pending;
+            clears = cleared;
+            inFlight = lines;
+            inFlightCleared = clears;
+            inFlightEvents = pendingEvents;
+            pending = new HashMap<>();
+            cleared = new HashSet<>();
+            pendingEvents = 0;
+        }
+
+        try {
+            dao.writeBatch(clears, lines);
+        } catch (SQLException | RuntimeException e) {
+            synchronized (this) {
+                int events = inFlightEvents;
+                endFlight();
+                restore(clears, lines, events);
+            }
+            throw e;
+        }
+        synchronized (this) {
+            endFlight();
+        }
+        Files.deleteIfExists(flushing);
+    }
+
+    private void endFlight() {
+        inFlight = Map.of();
+        inFlightCleared = Set.of();
+        inFlightEvents = 0;
+    }
+
+    // Puts a failed batch of the given number of events back under the changes made since, which are newer
+    private void restore(Set<Integer> clears, Map<Integer, Map<Integer, Integer>> lines, int events) {
+        Map<Integer, Map<Integer, Integer>> newer = pending;
+        Set<Integer> newerClears = cleared;
+        pending = lines;
+        cleared = clears;
+        for (int userId : newerClears) applyClear(userId);
+        newer.forEach((userId, products) -> products.forEach((productId, qty) -> apply(userId, productId, qty)));
+        pendingEvents += events;
+    }
+
+    // Events waiting for a flush, and those of the batch being written
+    synchronized int getPendingEvents() {
+        return pendingEvents + inFlightEvents;
+    }
+
+    // Moves the current log behind the batch being written; an older unfinished batch keeps its file
+    private void rotateLog() throws IOException {
+        if (out == null) return;
+        out.force(false);
+        closeLog();
+        try {
+            if (Files.exists(flushing)) {
+                Files.write(flushing, Files.readAllBytes(log), StandardOpenOption.APPEND);
+                Files.delete(log);
+            } else {
+                Files.move(log, flushing, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            // Keep logging either way; events left in both files replay to the same state
+            out = openLog();
+        }
+    }
+
+    private FileChannel openLog() throws IOException {
+        return FileChannel.open(log, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void closeLog() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        out = null;
+    }
+
+    private void replay(Path file) throws IOException {
+        if (!Files.exists(file)) return;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] f = line.trim().split(" ");
+                try {
+                    if (f[0].equals("S") && f.length == 4) {
+                        apply(Integer.parseInt(f[1]), Integer.parseInt(f[2]), Integer.parseInt(f[3]));
+                    } else if (f[0].equals("C") && f.length == 2) {
+                        applyClear(Integer.parseInt(f[1]));
+                    } else {
+                        continue;   // torn last line of a crashed write
+                    }
+                    pendingEvents++;
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.finalproject.service;
+
+import com.example.finalproject.dao.OrderDao;
+import com.example.finalproject.dao.ReportDao;
+import com.example.finalproject.util.CsvWriter;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Streams reports to CSV files: rows come from a forward-only cursor (-Dexport.fetchSize,
+ * default 1000) and go straight into a buffered file channel, so memory stays flat however
+ * many orders there are. Meant to run off the FX thread:
+ *
+ * - progress (0..1) is reported every fetchSize rows, on the calling thread;
+ * - interrupting the thread cancels the export (e.g. cancelling the FxAsync future);
+ * - the target only appears once complete: rows go to a temp file that is moved into place.
+ */
+public class CsvExportService {
+    private static final int FETCH_SIZE = Integer.getInteger("export.fetchSize", 1000);
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final OrderDao orderDao = new OrderDao();
+    private final ReportDao reportDao = new ReportDao();
+
+    /** Writes every order; returns the number of rows. */
+    public long exportOrders(Path target, DoubleConsumer progress) throws IOException, SQLException {
+        int total = orderDao.countAll();
+        return write(target, total, progress, (csv, rows) -> {
+            csv.row("OrderID", "UserID", "Total", "Status", "CreatedAt");
+            orderDao.streamAll(FETCH_SIZE, o -> {
+                csv.field(o.getId()).field(o.getUserId()).money(o.getTotal()).field(o.getStatus())
+                        .field(o.getCreatedAt() == null ? null : o.getCreatedAt().toString());
+                csv.endRow();
+                rows.next();
+            });
+        });
+    }
+
+    /** Writes the top-selling products report; returns the number of rows. */
+    public long exportTopProducts(Path target, DoubleConsumer progress) throws IOException, SQLException {
+        int total = reportDao.countSoldProducts();
+        return write(target, total, progress, (csv, rows) -> {
+            csv.row("Product", "Quantity Sold", "Revenue");
+            reportDao.streamTopSellingProducts(FETCH_SIZE, tp -> {
+                csv.field(tp.getProductName()).field(tp.getQuantitySold()).money(tp.getRevenue());
+                csv.endRow();
+                rows.next();
+            });
+        });
+    }
+
+    private long write(Path target, int total, DoubleConsumer progress, Body body) throws IOException, SQLException {
+        Path tmp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".part");
+        ExportProgress rows = new ExportProgress(total, FETCH_SIZE, progress);
+        boolean done = false;
+        try {
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 CsvWriter csv = new CsvWriter(channel, BUFFER_SIZE)) {
+                body.write(csv, rows);
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            done = true;
+            rows.done();
+            return rows.count();
+        } finally {
+            if (!done) Files.deleteIfExists(tmp);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Body {
+        void write(CsvWriter csv, ExportProgress rows) throws IOException, SQLException;
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.finalproject.service;
+
+import com.example.finalproject.dao.PromotionDao;
+import com.example.finalproject.model.Product;
+import com.example.finalproject.model.Promotion;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Resolves the single best active discount per product from an in-memory copy of the
+ * promotions table. Replaces the product x promotion join, which returned one row per
+ * matching promotion and could not use an index.
+ *
+ * Promotions still running or starting later are loaded once; the per-day lookup maps are
+ * rebuilt from them when the date changes, and the rows are reloaded after {@link #invalidate()}
+ * or every few minutes in case another client changed them.
+ */
+public class DiscountResolver {
+    private static final long RELOAD_INTERVAL_MS = 5 * 60 * 1000;
+    private static final DiscountResolver instance = new DiscountResolver();
+
+    private final PromotionDao promotionDao = new PromotionDao();
+
+    private List<Promotion> promotions;
+    private long loadedAt;
+    private Snapshot snapshot;
+
+    private DiscountResolver() {}
+
+    public static DiscountResolver getInstance() {
+        return instance;
+    }
+
+    /** Sets the best active discount (in %) on the product and returns it. */
+    public Product apply(Product p) {
+        p.setDiscount(current().discountFor(p));
+        return p;
+    }
+
+    public List<Product> applyAll(List<Product> products) {
+        Snapshot s = current();
+        for (Product p : products) p.setDiscount(s.discountFor(p));
+        return products;
+    }
+
+    /** Call after promotions are added or removed. */
+    public synchronized void invalidate() {
+        promotions = null;
+        snapshot = null;
+    }
+
+    private synchronized Snapshot current() {
+        LocalDate today = LocalDate.now();
+        if (promotions == null || System.currentTimeMillis() - loadedAt > RELOAD_INTERVAL_MS) {
+            promotions = promotionDao.findEndingOnOrAfter(today);
+            loadedAt = System.currentTimeMillis();
+            snapshot = null;
+        }
+        if (snapshot == null || !snapshot.day.equals(today)) {
+            snapshot = new Snapshot(today, promotions);
+        }
+        return snapshot;
+    }
+
+    /** Best discount per product id and per category for one day. */
+    private static final class Snapshot {
+        final LocalDate day;
+        final Map<Integer, Double> byProduct = new HashMap<>();
+        final Map<String, Double> byCategory = new HashMap<>();
+
+        Snapshot(LocalDate day, List<Promotion> promotions) {
+            this.day = day;
+            for (Promotion pr : promotions) {
+                if (day.isBefore(pr.getStartDate().toLocalDate()) || day.isAfter(pr.getEndDate().toLocalDate()))
+                    continue;
+                if (pr.getProductId() != null)
+                    byProduct.merge(pr.getProductId(), pr.getDiscount(), Math::max);
+                if (pr.getCategory() != null && !pr.getCategory().isBlank())
+                    byCategory.merge(key(pr.getCategory()), pr.getDiscount(), Math::max);
+            }
+        }
+
+        double discountFor(Product p) {
+            double d = byProduct.getOrDefault(p.getId(), 0.0);
+            if (p.getCategory() != null)
+                d = Math.max(d, byCategory.getOrDefault(key(p.getCategory()), 0.0));
+            return d;
+        }
+
+        // MySQL compared categories case-insensitively; keep that behaviour
+        private static String key(String category) {
+            return category.trim().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.finalproject.service;
+
+import java.io.InterruptedIOException;
+import java.util.function.DoubleConsumer;
+
+/**
+ * Row counter shared by the exporters: reports progress (0..1) every step rows and
+ * notices cancellation (an interrupted worker) between rows.
+ */
+final class ExportProgress {
+    private final long total;
+    private final int step;
+    private final DoubleConsumer listener;
+    private long count;
+
+    ExportProgress(long total, int step, DoubleConsumer listener) {
+        this.total = total;
+        this.step = step;
+        this.listener = listener;
+    }
+
+    void next() throws InterruptedIOException {
+        count++;
+        if (count % step != 0) return;
+        if (Thread.currentThread().isInterrupted()) throw new InterruptedIOException("Export cancelled");
+        listener.accept(total == 0 ? 0 : Math.min(1.0, (double) count / total));
+    }
+
+    void done() {
+        listener.accept(1);
+    }
+
+    long count() {
+        return count;
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.finalproject.service;
+
+import javafx.application.Platform;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decoded product images shared by every screen.
+ * Images are decoded at the size they are shown, on background threads, and kept in an
+ * LRU cache bounded by decoded bytes (width * height * 4). Views get the placeholder
+ * right away and the real image once it is ready; concurrent requests for the same
+ * image share one decode.
+ *
+ * Settings: -Dimage.cache.maxBytes (default 64 MB), -Dimage.cache.threads (default 2).
+ */
+public class ImageCache {
+    private static final ImageCache instance = new ImageCache(
+            Long.getLong("image.cache.maxBytes", 64L * 1024 * 1024),
+            Integer.getInteger("image.cache.threads", 2));
+
+    private static final String PLACEHOLDER = "/com/example/finalproject/view/default.png";
+    // Key of the image an ImageView is waiting for, so a recycled view never shows a stale one
+    private static final String VIEW_KEY = "imageCache.key";
+
+    private final long maxBytes;
+    private long bytes;
+    private final LinkedHashMap<String, Image> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private final Map<String, CompletableFuture<Image>> inFlight = new HashMap<>();
+    private final Map<Integer, Image> placeholders = new HashMap<>();
+    private final ExecutorService decoder;
+    private final ThumbnailService thumbnails = ThumbnailService.getInstance();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    private ImageCache(long maxBytes, int threads) {
+        this.maxBytes = maxBytes;
+        AtomicInteger n = new AtomicInteger();
+        this.decoder = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "image-decoder-" + n.incrementAndGet());
+            t.setDaemon(true);
+            t.setPriority(Thread.NORM_PRIORITY - 1);
+            return t;
+        });
+    }
+
+    public static ImageCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Shows the image at path in the view, fitted into size x size.
+     * Must be called on the FX thread; the view shows the placeholder until the image is decoded.
+     */
+    public void load(ImageView view, String path, int size) {
+        String key = key(path, size);
+        view.getProperties().put(VIEW_KEY, key);
+        if (key == null) {
+            view.setImage(placeholder(size));
+            return;
+        }
+
+        Image cached = getCached(key);
+        if (cached != null) {
+            view.setImage(cached);
+            return;
+        }
+
+        view.setImage(placeholder(size));
+        request(key, path, size).thenAccept(image -> Platform.runLater(() -> {
+            if (key.equals(view.getProperties().get(VIEW_KEY))) view.setImage(image);
+        }));
+    }
+
+    /** The decoded image, loading it in the background if needed. Completes with the placeholder on errors. */
+    public CompletableFuture<Image> get(String path, int size) {
+        String key = key(path, size);
+        if (key == null) return CompletableFuture.completedFuture(placeholder(size));
+        Image cached = getCached(key);
+        return cached != null ? CompletableFuture.completedFuture(cached) : request(key, path, size);
+    }
+
+    /** Drops every cached size of one file, e.g. after it was replaced on disk. */
+    public synchronized void invalidate(String path) {
+        String prefix = path + "@";
+        cache.entrySet().removeIf(e -> {
+            if (!e.getKey().startsWith(prefix)) return false;
+            bytes -= sizeOf(e.getValue());
+            return true;
+        });
+    }
+
+    public synchronized void clear() {
+        cache.clear();
+        bytes = 0;
+    }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public synchronized long getBytes() { return bytes; }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ImageCache[images=%d, bytes=%d/%d, hits=%d, misses=%d]",
+                cache.size(), bytes, maxBytes, getHits(), getMisses());
+    }
+
+    private synchronized Image getCached(String key) {
+        Image image = cache.get(key);
+        if (image != null) hits.increment();
+        return image;
+    }
+
+    private synchronized CompletableFuture<Image> request(String key, String path, int size) {
+        CompletableFuture<Image> pending = inFlight.get(key);
+        if (pending != null) return pending;
+
+        misses.increment();
+        CompletableFuture<Image> future = CompletableFuture.supplyAsync(() -> decode(key, path, size), decoder);
+        inFlight.put(key, future);
+        return future;
+    }
+
+    private Image decode(String key, String path, int size) {
+        Image image = null;
+        try {
+            // Prefer the pre-rendered thumbnail; the original is only decoded for sizes without one
+            String thumbnail = thumbnails.thumbnailFor(path, size);
+            String file = thumbnail != null ? thumbnail : path;
+            // Synchronous decode on this worker; scaled while decoding so only size x size is kept
+            image = new Image(new File(file).toURI().toString(), size, size, true, true, false);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+
+        synchronized (this) {
+            inFlight.remove(key);
+            if (image == null || image.isError()) return placeholder(size);
+            put(key, image);
+        }
+        return image;
+    }
+
+    private void put(String key, Image image) {
+        Image old = cache.put(key, image);
+        if (old != null) bytes -= sizeOf(old);
+        bytes += sizeOf(image);
+
+        var it = cache.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Image> eldest = it.next();
+            if (eldest.getKey().equals(key)) continue;
+            bytes -= sizeOf(eldest.getValue());
+            it.remove();
+        }
+    }
+
+    private synchronized Image placeholder(int size) {
+        return placeholders.computeIfAbsent(size, s ->
+                new Image(getClass().getResource(PLACEHOLDER).toExternalForm(), s, s, true, true));
+    }
+
+    private static String key(String path, int size) {
+        return path == null || path.isBlank() ? null : path + "@" + size;
+    }
+
+    private static long sizeOf(Image image) {
+        return (long) image.getWidth() * (long) image.getHeight() * 4;
+    }
+}
@@ -6,54 +6,154 @@ import com.example.finalproject.model.OrderItem;
 import com.itextpdf.text.*;
 import com.itextpdf.text.pdf.*;
 
-import java.io.FileOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
-
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.DoubleConsumer;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Invoice PDFs. Fonts and the items table template are built once and shared; orders, items
+ * and product names are loaded with one query per batch. Bulk invoices render in parallel on
+ * -Dpdf.threads (default: CPU count) workers, -Dinvoice.batchSize (default 500) orders at a time.
+ */
 public class InvoiceService {
+    private static final int BATCH_SIZE = Integer.getInteger("invoice.batchSize", 500);
+    private static final ExecutorService RENDERERS = Executors.newFixedThreadPool(
+            Integer.getInteger("pdf.threads", Runtime.getRuntime().availableProcessors()),
+            Thread.ofPlatform().name("pdf-renderer-", 1).daemon().factory());
+
+    // Only read after class initialization, so every renderer can share them
+    private static final Font TITLE_FONT = new Font(Font.FontFamily.HELVETICA, 20, Font.BOLD, BaseColor.BLUE);
+    private static final Font INFO_FONT = new Font(Font.FontFamily.HELVETICA, 12, Font.NORMAL);
+    private static final Font TOTAL_FONT = new Font(Font.FontFamily.HELVETICA, 14, Font.BOLD);
+    private static final Font HEAD_FONT = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD, BaseColor.WHITE);
+    private static final PdfPTable ITEMS_TEMPLATE = itemsTemplate();
 
     private final OrderDao orderDao = new OrderDao();
 
     public Path generateInvoice(int orderId) throws Exception {
-        // 🔹 Get order and its items
-        Order order = orderDao.findById(orderId);
-        List<OrderItem> items = orderDao.findItemsByOrder(orderId);
+        return generateInvoice(orderId, Path.of(System.getProperty("user.dir")));
+    }
 
-        if (order == null)
+    /** Writes invoice_<orderId>.pdf into dir. */
+    public Path generateInvoice(int orderId, Path dir) throws Exception {
+        List<Order> found = orderDao.findWithItems(List.of(orderId));
+        if (found.isEmpty())
             throw new SQLException("Order not found for ID " + orderId);
+        return writeFile(found.get(0), dir);
+    }
 
-        // 🔹 File path
-        Path pdfPath = Path.of(System.getProperty("user.dir"), "invoice_" + orderId + ".pdf");
+    public List<Path> generateInvoices(Collection<Integer> orderIds, Path dir) throws Exception {
+        return generateInvoices(orderIds, dir, p -> {});
+    }
 
+    /**
+     * Writes one invoice_<id>.pdf per existing order into dir, in parallel.
+     * Progress (0..1) is reported from the worker threads; interrupting the caller cancels the rest.
+     */
+    public List<Path> generateInvoices(Collection<Integer> orderIds, Path dir, DoubleConsumer progress) throws Exception {
+        Files.createDirectories(dir);
+        List<Path> written = new ArrayList<>(orderIds.size());
+        Batches batches = new Batches(orderIds, progress);
+        for (List<Order> batch = batches.next(); batch != null; batch = batches.next()) {
+            List<Future<Path>> jobs = new ArrayList<>(batch.size());
+            for (Order order : batch) jobs.add(RENDERERS.submit(() -> batches.done(writeFile(order, dir))));
+            written.addAll(await(jobs));
+        }
+        return written;
+    }
+
+    /** Same, as entries of a single zip file (written atomically, in order id order). */
+    public Path generateInvoicesZip(Collection<Integer> orderIds, Path zipFile, DoubleConsumer progress) throws Exception {
+        Path tmp = Files.createTempFile(zipFile.toAbsolutePath().getParent(), zipFile.getFileName().toString(), ".part");
+        boolean done = false;
+        try {
+            try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024))) {
+                Batches batches = new Batches(orderIds, progress);
+                for (List<Order> batch = batches.next(); batch != null; batch = batches.next()) {
+                    // Render the batch in parallel, then append the entries in order on this thread
+                    List<Future<byte[]>> jobs = new ArrayList<>(batch.size());
+                    for (Order order : batch) {
+                        jobs.add(RENDERERS.submit(() -> {
+                            ByteArrayOutputStream pdf = new ByteArrayOutputStream(8 * 1024);
+                            render(order, pdf);
+                            return batches.done(pdf.toByteArray());
+                        }));
+                    }
+                    List<byte[]> pdfs = await(jobs);
+                    for (int i = 0; i < batch.size(); i++) {
+                        zip.putNextEntry(new ZipEntry(fileName(batch.get(i))));
+                        zip.write(pdfs.get(i));
+                        zip.closeEntry();
+                    }
+                }
+            }
+            Files.move(tmp, zipFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            done = true;
+            return zipFile;
+        } finally {
+            if (!done) Files.deleteIfExists(tmp);
+        }
+    }
+
+    // Renders into a temp file next to the invoice and moves it into place, so a cancelled or
+    // failed render never leaves a truncated PDF under the final name
+    private Path writeFile(Order order, Path dir) throws IOException, DocumentException {
+        Path pdfPath = dir.resolve(fileName(order));
+        Path tmp = Files.createTempFile(dir, fileName(order), ".part");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                render(order, out);
+            }
+            Files.move(tmp, pdfPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return pdfPath;
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static String fileName(Order order) {
+        return "invoice_" + order.getId() + ".pdf";
+    }
+
+    private static void render(Order order, OutputStream out) throws DocumentException {
         Document document = new Document(PageSize.A4, 50, 50, 50, 50);
-        PdfWriter.getInstance(document, new FileOutputStream(pdfPath.toFile()));
+        PdfWriter.getInstance(document, out);
         document.open();
 
         // 🔹 Title
-        Font titleFont = new Font(Font.FontFamily.HELVETICA, 20, Font.BOLD, BaseColor.BLUE);
-        Paragraph title = new Paragraph("Invoice for Order #" + orderId, titleFont);
+        Paragraph title = new Paragraph("Invoice for Order #" + order.getId(), TITLE_FONT);
         title.setAlignment(Element.ALIGN_CENTER);
         document.add(title);
         document.add(Chunk.NEWLINE);
 
         // 🔹 Customer and Order Info
-        Font infoFont = new Font(Font.FontFamily.HELVETICA, 12, Font.NORMAL);
-        document.add(new Paragraph("Customer ID: " + order.getUserId(), infoFont));
-        document.add(new Paragraph("Status: " + order.getStatus(), infoFont));
-        document.add(new Paragraph("Created At: " + order.getCreatedAt(), infoFont));
+        document.add(new Paragraph("Customer ID: " + order.getUserId(), INFO_FONT));
+        document.add(new Paragraph("Status: " + order.getStatus(), INFO_FONT));
+        document.add(new Paragraph("Created At: " + order.getCreatedAt(), INFO_FONT));
         document.add(Chunk.NEWLINE);
 
-        // 🔹 Items Table
-        PdfPTable table = new PdfPTable(4);
-        table.setWidthPercentage(100);
-        table.setWidths(new int[]{4, 2, 2, 2});
-
-        addTableHeader(table, "Product ID", "Quantity", "Price ($)", "Subtotal ($)");
-
+        // 🔹 Items Table (a copy of the template with its header row)
+        PdfPTable table = new PdfPTable(ITEMS_TEMPLATE);
         double total = 0;
-        for (OrderItem item : items) {
-            table.addCell(String.valueOf(item.getProductId()));
+        for (OrderItem item : order.getItems()) {
+            table.addCell(item.getProductName() != null ? item.getProductName() : "#" + item.getProductId());
             table.addCell(String.valueOf(item.getQuantity()));
             table.addCell(String.format("%.2f", item.getPrice()));
             double sub = item.getQuantity() * item.getPrice();
@@ -65,25 +165,70 @@ public class InvoiceService {
         document.add(Chunk.NEWLINE);
 
         // 🔹 Total
-        Font totalFont = new Font(Font.FontFamily.HELVETICA, 14, Font.BOLD);
-        Paragraph totalP = new Paragraph("Total: $" + String.format("%.2f", total), totalFont);
+        Paragraph totalP = new Paragraph("Total: $" + String.format("%.2f", total), TOTAL_FONT);
         totalP.setAlignment(Element.ALIGN_RIGHT);
         document.add(totalP);
 
         document.add(Chunk.NEWLINE);
-        document.add(new Paragraph("Thank you for your purchase!", infoFont));
+        document.add(new Paragraph("Thank you for your purchase!", INFO_FONT));
 
         document.close();
-        return pdfPath;
     }
 
-    private void addTableHeader(PdfPTable table, String... headers) {
-        Font headFont = new Font(Font.FontFamily.HELVETICA, 12, Font.BOLD, BaseColor.WHITE);
-        for (String header : headers) {
-            PdfPCell cell = new PdfPCell(new Phrase(header, headFont));
+    private static PdfPTable itemsTemplate() {
+        PdfPTable table = new PdfPTable(4);
+        table.setWidthPercentage(100);
+        try {
+            table.setWidths(new int[]{4, 2, 2, 2});
+        } catch (DocumentException e) {
+            throw new IllegalStateException(e);
+        }
+        for (String header : new String[]{"Product", "Quantity", "Price ($)", "Subtotal ($)"}) {
+            PdfPCell cell = new PdfPCell(new Phrase(header, HEAD_FONT));
             cell.setBackgroundColor(BaseColor.DARK_GRAY);
             cell.setHorizontalAlignment(Element.ALIGN_CENTER);
             table.addCell(cell);
         }
+        table.setHeaderRows(1);
+        return table;
+    }
+
+    private static <T> List<T> await(List<Future<T>> jobs) throws Exception {
+        List<T> results = new ArrayList<>(jobs.size());
+        try {
+            for (Future<T> job : jobs) results.add(job.get());
+        } catch (InterruptedException e) {
+            jobs.forEach(j -> j.cancel(true));
+            throw new InterruptedIOException("Invoice generation cancelled");
+        } catch (ExecutionException e) {
+            jobs.forEach(j -> j.cancel(true));
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+        return results;
+    }
+
+    // Loads the orders BATCH_SIZE at a time and counts finished invoices for the progress
+    private final class Batches {
+        private final List<Integer> ids;
+        private final DoubleConsumer progress;
+        private final AtomicInteger finished = new AtomicInteger();
+        private int next;
+
+        Batches(Collection<Integer> ids, DoubleConsumer progress) {
+            this.ids = new ArrayList<>(ids);
+            this.progress = progress;
+        }
+
+        List<Order> next() throws SQLException {
+            if (next >= ids.size()) return null;
+            List<Integer> chunk = ids.subList(next, Math.min(ids.size(), next + BATCH_SIZE));
+            next += chunk.size();
+            return orderDao.findWithItems(chunk);
+        }
+
+        <T> T done(T result) {
+            progress.accept((double) finished.incrementAndGet() / ids.size());
+            return result;
+        }
     }
 }
@@ -0,0 +1,173 @@
+package com.example.finalproject.service;
+
+import com.example.finalproject.dao.OrderDao;
+import com.example.finalproject.model.Order;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checkout writes go through one writer thread that group-commits the orders waiting in a
+ * bounded queue: up to -Dorders.batch.max (default 50) orders per transaction, each behind
+ * its own savepoint so one order failing (e.g. out of stock) does not affect the others.
+ * When the server rolled the whole transaction back (SQLState class 40, e.g. a deadlock) the
+ * orders are retried one by one. Any other failure of the batch fails all of its orders
+ * without a retry: a commit whose reply was lost may have gone through, and retrying
+ * would place those orders twice.
+ *
+ * The queue holds -Dorders.queue.capacity (default 1000) orders; when it is full submit()
+ * blocks up to -Dorders.queue.offerTimeoutMs (default 5000) and then rejects the order.
+ */
+public class OrderIngestQueue {
+    private static final OrderIngestQueue instance = new OrderIngestQueue(
+            Integer.getInteger("orders.queue.capacity", 1000),
+            Integer.getInteger("orders.batch.max", 50),
+            Long.getLong("orders.queue.offerTimeoutMs", 5_000L));
+
+    private final OrderDao dao = new OrderDao();
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatch;
+    private final long offerTimeoutMs;
+    private Thread writer;
+
+    private OrderIngestQueue(int capacity, int maxBatch, long offerTimeoutMs) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.offerTimeoutMs = offerTimeoutMs;
+    }
+
+    public static OrderIngestQueue getInstance() {
+        return instance;
+    }
+
+    /**
+     * Queues the order; the future completes with its id once it is committed, or with the
+     * SQLException that rolled it back. Saves directly when the writer is not running.
+     */
+    public CompletableFuture<Integer> submit(Order order) {
+        Pending p = new Pending(order);
+        if (!isRunning()) {
+            saveAlone(p);
+            return p.result;
+        }
+        try {
+            if (!queue.offer(p, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                p.result.completeExceptionally(new RejectedExecutionException("Too many orders in progress, please try again"));
+            } else if (!isRunning() && queue.remove(p)) {
+                // stop() ran while we were offering and may have drained the queue already;
+                // whoever takes the order out of the queue (us, or stop()'s drain) saves it
+                saveAlone(p);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            p.result.completeExceptionally(e);
+        }
+        return p.result;
+    }
+
+    public int getQueued() {
+        return queue.size();
+    }
+
+    public synchronized boolean isRunning() {
+        return writer != null && writer.isAlive();
+    }
+
+    public synchronized void start() {
+        if (writer != null) return;
+        writer = new Thread(this::drain, "order-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /** Stops taking new batches and saves whatever is still queued. */
+    public void stop() {
+        Thread w;
+        synchronized (this) {
+            w = writer;
+            writer = null;
+        }
+        if (w == null) return;
+        w.interrupt();
+        try {
+            w.join(10_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) write(rest);
+    }
+
+    private void drain() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            // Whatever arrived while the last batch was committing goes into this one
+            queue.drainTo(batch, maxBatch - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    // Never throws: every order of the batch ends up completed, so no checkout waits forever
+    private void write(List<Pending> batch) {
+        try {
+            List<Order> orders = new ArrayList<>(batch.size());
+            for (Pending p : batch) orders.add(p.order);
+            List<Exception> failures;
+            try {
+                failures = dao.saveOrders(orders);
+            } catch (SQLException e) {
+                if (rolledBack(e)) {
+                    // The server undid the whole transaction, so each order gets its own
+                    for (Pending p : batch) saveAlone(p);
+                } else {
+                    // Outcome unknown (e.g. connection lost during the commit): do not risk saving twice
+                    for (Pending p : batch) p.result.completeExceptionally(e);
+                }
+                return;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                Pending p = batch.get(i);
+                if (failures.get(i) == null) p.result.complete(p.order.getId());
+                else p.result.completeExceptionally(failures.get(i));
+            }
+        } catch (Throwable t) {
+            for (Pending p : batch) p.result.completeExceptionally(t);
+            if (t instanceof Error) throw (Error) t;
+        }
+    }
+
+    private void saveAlone(Pending p) {
+        try {
+            dao.saveOrder(p.order);
+            p.result.complete(p.order.getId());
+        } catch (SQLException | RuntimeException e) {
+            p.result.completeExceptionally(e);
+        }
+    }
+
+    private static boolean rolledBack(SQLException e) {
+        return e.getSQLState() != null && e.getSQLState().startsWith("40");
+    }
+
+    private static final class Pending {
+        final Order order;
+        final CompletableFuture<Integer> result = new CompletableFuture<>();
+
+        Pending(Order order) {
+            this.order = order;
+        }
+    }
+}
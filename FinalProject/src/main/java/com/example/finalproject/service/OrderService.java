@@ -4,13 +4,36 @@ import com.example.finalproject.dao.OrderDao;
 import com.example.finalproject.model.Order;
 import com.example.finalproject.model.OrderItem;
 
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 public class OrderService {
     private final OrderDao dao = new OrderDao();
+    private final ProductCatalogCache catalog = ProductCatalogCache.getInstance();
+    private final ReportService reports = ReportService.getInstance();
 
-    public void placeOrder(Order order) throws Exception {
-        dao.saveOrder(order);
+    private final OrderIngestQueue ingest = OrderIngestQueue.getInstance();
+
+    /** Queues the order for the group-commit writer; completes with the order id once committed. */
+    public CompletableFuture<Integer> placeOrderAsync(Order order) {
+        return ingest.submit(order).whenComplete((id, e) -> {
+            // Stock of the ordered products changed inside the order transaction
+            if (e == null) for (OrderItem item : order.getItems()) catalog.invalidate(item.getProductId());
+        });
+    }
+
+    /** Blocking variant: waits for the commit and rethrows the SQLException that rolled the order back. */
+    public int placeOrder(Order order) throws Exception {
+        try {
+            return placeOrderAsync(order).get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
     }
     public List<Order> filterOrders(String keyword, String status) {
         return dao.filterOrders(keyword, status);
@@ -24,9 +47,36 @@ public class OrderService {
 
     public void markDelivered(int id) {
         dao.updateStatus(id, "DELIVERED");
+        refreshReports(orderDay(id), dao.findItemsByOrder(id));
     }
 
     public void deleteOrder(int id) {
+        // Deleting an order puts its stock back, so cached rows for those products are stale
+        List<OrderItem> items = dao.findItemsByOrder(id);
+        LocalDate day = orderDay(id);
         dao.delete(id);
+        refreshReports(day, items);
+        for (OrderItem item : items) catalog.invalidate(item.getProductId());
+    }
+
+    // Re-reads the report cells the order's products have on its day
+    private void refreshReports(LocalDate day, List<OrderItem> items) {
+        Set<Integer> productIds = new HashSet<>();
+        for (OrderItem item : items) productIds.add(item.getProductId());
+        try {
+            reports.refresh(day, productIds);
+        } catch (SQLException e) {
+            // The analytics are reloaded on the next refresh of the reports screen
+            e.printStackTrace();
+        }
+    }
+
+    private LocalDate orderDay(int id) {
+        try {
+            return dao.findOrderDay(id);
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return null;
+        }
     }
 }
@@ -0,0 +1,119 @@
+package com.example.finalproject.service;
+
+import com.example.finalproject.dao.OrderDao;
+import com.itextpdf.text.BaseColor;
+import com.itextpdf.text.Document;
+import com.itextpdf.text.DocumentException;
+import com.itextpdf.text.Element;
+import com.itextpdf.text.Font;
+import com.itextpdf.text.PageSize;
+import com.itextpdf.text.Paragraph;
+import com.itextpdf.text.Phrase;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
+import com.itextpdf.text.pdf.PdfWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.DoubleConsumer;
+
+/**
+ * PDF exports for the admin screens, meant to run off the FX thread (see CsvExportService
+ * for the progress/cancellation contract).
+ *
+ * The orders report streams rows into an iText "large table" that is flushed to the file
+ * every -Dpdf.flushRows (default 500) rows, so memory does not grow with the row count.
+ * Bulk invoices are rendered in parallel by InvoiceService.
+ */
+public class PdfExportService {
+    private static final int FETCH_SIZE = Integer.getInteger("export.fetchSize", 1000);
+    private static final int FLUSH_ROWS = Integer.getInteger("pdf.flushRows", 500);
+
+    private final OrderDao orderDao = new OrderDao();
+    private final InvoiceService invoices = new InvoiceService();
+
+    /** Writes the orders report; returns the number of rows. */
+    public long exportOrders(Path target, DoubleConsumer progress) throws IOException, SQLException {
+        ExportProgress rows = new ExportProgress(orderDao.countAll(), FLUSH_ROWS, progress);
+        Path tmp = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName().toString(), ".part");
+        boolean done = false;
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024)) {
+                Document doc = new Document(PageSize.A4);
+                PdfWriter.getInstance(doc, out);
+                doc.open();
+                doc.add(new Paragraph("Orders Report"));
+                doc.add(new Paragraph(" "));
+
+                // Rows already added are written out and dropped each time the table is added
+                PdfPTable table = new PdfPTable(5);
+                table.setComplete(false);
+                table.setHeaderRows(1);
+                table.setWidthPercentage(100);
+                Font headFont = new Font(Font.FontFamily.HELVETICA, 11, Font.BOLD, BaseColor.WHITE);
+                for (String header : new String[]{"Order ID", "User ID", "Total", "Status", "Created At"}) {
+                    PdfPCell cell = new PdfPCell(new Phrase(header, headFont));
+                    cell.setBackgroundColor(BaseColor.DARK_GRAY);
+                    cell.setHorizontalAlignment(Element.ALIGN_CENTER);
+                    table.addCell(cell);
+                }
+
+                orderDao.streamAll(FETCH_SIZE, o -> {
+                    table.addCell(String.valueOf(o.getId()));
+                    table.addCell(String.valueOf(o.getUserId()));
+                    table.addCell(String.format("%.2f", o.getTotal()));
+                    table.addCell(o.getStatus());
+                    table.addCell(String.valueOf(o.getCreatedAt()));
+                    rows.next();
+                    if (rows.count() % FLUSH_ROWS == 0) add(doc, table);
+                });
+                table.setComplete(true);
+                doc.add(table);
+                doc.close();
+            }
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            done = true;
+            rows.done();
+            return rows.count();
+        } catch (DocumentException e) {
+            throw new IOException("PDF rendering failed", e);
+        } finally {
+            if (!done) Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Writes one invoice per order created in [from, to] (whole days), rendered in parallel by
+     * InvoiceService, into dir or (zip) into dir + ".zip". Returns the number of invoices;
+     * interrupting the caller cancels the rest.
+     */
+    public int generateInvoices(LocalDate from, LocalDate to, Path dir, boolean zip, DoubleConsumer progress) throws Exception {
+        List<Integer> ids = orderDao.findIdsCreatedBetween(
+                Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        if (zip) {
+            Path file = dir.resolveSibling(dir.getFileName() + ".zip");
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            invoices.generateInvoicesZip(ids, file, progress);
+        } else {
+            invoices.generateInvoices(ids, dir, progress);
+        }
+        return ids.size();
+    }
+
+    // Flushes the rows added so far; a RowHandler may only throw IOException
+    private static void add(Document doc, PdfPTable table) throws IOException {
+        try {
+            doc.add(table);
+        } catch (DocumentException e) {
+            throw new IOException("PDF rendering failed", e);
+        }
+    }
+}
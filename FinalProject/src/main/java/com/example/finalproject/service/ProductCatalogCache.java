@@ -0,0 +1,206 @@
+package com.example.finalproject.service;
+
+import com.example.finalproject.dao.ProductDao;
+import com.example.finalproject.model.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Read-through cache of product rows shared by every screen.
+ * Entries are keyed by id, bounded in size (LRU) and expire after a TTL.
+ * ProductService keeps it in sync on writes. Callers get their own copies, so
+ * editing or discounting a returned product never changes what others see.
+ * Misses are queried outside the lock, so a slow load never holds up hits or invalidations.
+ *
+ * Settings: -Dcatalog.cache.ttlMs (default 60s), -Dcatalog.cache.maxSize (default 10000).
+ */
+public class ProductCatalogCache {
+    private static final ProductCatalogCache instance = new ProductCatalogCache(new ProductDao(),
+            Long.getLong("catalog.cache.ttlMs", 60_000L),
+            Integer.getInteger("catalog.cache.maxSize", 10_000));
+
+    private final ProductDao dao;
+    private final long ttlMs;
+    private final int maxSize;
+
+    private final LinkedHashMap<Integer, Entry> byId;
+
+    // Ids of the whole catalog (newest first) when it was last loaded in full and fit in the cache
+    private List<Integer> allIds;
+    private long allLoadedAt;
+
+    // Bumped by every invalidation; queries run outside the lock and cache only if it did not move
+    private long invalidations;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    ProductCatalogCache(ProductDao dao, long ttlMs, int maxSize) {
+        this.dao = dao;
+        this.ttlMs = ttlMs;
+        this.maxSize = maxSize;
+        this.byId = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                if (size() <= ProductCatalogCache.this.maxSize) return false;
+                allIds = null;
+                return true;
+            }
+        };
+    }
+
+    public static ProductCatalogCache getInstance() {
+        return instance;
+    }
+
+    public Optional<Product> get(int id) {
+        long gen;
+        synchronized (this) {
+            Entry e = fresh(id);
+            if (e != null) {
+                hits.increment();
+                return Optional.of(new Product(e.product));
+            }
+            misses.increment();
+            gen = invalidations;
+        }
+        Optional<Product> loaded = dao.getById(id);
+        loaded.ifPresent(p -> cacheLoaded(List.of(p), gen));
+        return loaded;
+    }
+
+    /** Products for the given ids in the same order; only the missing ones are queried, in one batch. */
+    public List<Product> getAll(List<Integer> ids) {
+        Map<Integer, Product> found = new HashMap<>();
+        Set<Integer> missing = new LinkedHashSet<>();
+        long gen;
+        synchronized (this) {
+            for (int id : ids) {
+                Entry e = fresh(id);
+                if (e != null) found.put(id, e.product);
+                else missing.add(id);
+            }
+            gen = invalidations;
+        }
+        hits.add(ids.size() - missing.size());
+        misses.add(missing.size());
+        if (!missing.isEmpty()) {
+            List<Product> loaded = dao.findByIds(missing);
+            cacheLoaded(loaded, gen);
+            for (Product p : loaded) found.put(p.getId(), p);
+        }
+
+        List<Product> list = new ArrayList<>(ids.size());
+        for (int id : ids) {
+            Product p = found.get(id);
+            if (p != null) list.add(new Product(p));
+        }
+        return list;
+    }
+
+    /** The whole catalog, newest first. */
+    public List<Product> getAll() {
+        List<Integer> ids = null;
+        long gen;
+        synchronized (this) {
+            if (allIds != null && !expired(allLoadedAt)) ids = allIds;
+            gen = invalidations;
+        }
+        if (ids != null) return getAll(ids);
+
+        List<Product> products = dao.getAllProducts();
+        // Counted per product like getAll(ids), so the hit rate compares like with like
+        misses.add(products.size());
+        synchronized (this) {
+            if (gen == invalidations) {
+                putAll(products);
+                if (products.size() <= maxSize) {
+                    allIds = products.stream().map(Product::getId).toList();
+                    allLoadedAt = System.currentTimeMillis();
+                }
+            }
+        }
+        return products;
+    }
+
+    /** Caches a copy; later changes to {@code p} are not seen by other readers. */
+    public synchronized void put(Product p) {
+        byId.put(p.getId(), new Entry(new Product(p), System.currentTimeMillis()));
+    }
+
+    public synchronized void putAll(Collection<Product> products) {
+        for (Product p : products) put(p);
+    }
+
+    /** Drops one product, e.g. after its stock or fields changed in the database. */
+    public synchronized void invalidate(int id) {
+        invalidations++;
+        byId.remove(id);
+    }
+
+    /** Drops the catalog listing after products were added or removed. */
+    public synchronized void invalidateListing() {
+        invalidations++;
+        allIds = null;
+    }
+
+    public synchronized void invalidateAll() {
+        invalidations++;
+        byId.clear();
+        allIds = null;
+    }
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public synchronized int size() { return byId.size(); }
+
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ProductCatalogCache[size=%d, hits=%d, misses=%d (%.0f%%)]",
+                size(), getHits(), getMisses(), getHitRate() * 100);
+    }
+
+    private Entry fresh(int id) {
+        Entry e = byId.get(id);
+        if (e == null) return null;
+        if (expired(e.loadedAt)) {
+            byId.remove(id);
+            return null;
+        }
+        return e;
+    }
+
+    // Rows read before an invalidation may predate the write behind it; they are returned but not cached
+    private synchronized void cacheLoaded(Collection<Product> products, long gen) {
+        if (gen == invalidations) putAll(products);
+    }
+
+    private boolean expired(long loadedAt) {
+        return System.currentTimeMillis() - loadedAt > ttlMs;
+    }
+
+    private static final class Entry {
+        final Product product;
+        final long loadedAt;
+
+        Entry(Product product, long loadedAt) {
+            this.product = product;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.finalproject.service;
+
+import com.example.finalproject.dao.ProductDao;
+import com.example.finalproject.model.Product;
+import com.example.finalproject.model.ProductSort;
+import com.example.finalproject.util.SearchIndex;
+import com.example.finalproject.util.SearchIndex.Hit;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.finalproject.util.SearchIndex.field;
+
+/**
+ * Full-text index of the catalog (name, category, description).
+ * Built by streaming the products table once on the first search and kept up to date by
+ * ProductService writes. It also keeps each product's category, price and name, so
+ * filtering, sorting, counting and paging a search are done on ids alone; only the
+ * products of the requested page are ever loaded.
+ */
+public class ProductSearchIndex {
+    private static final ProductSearchIndex instance = new ProductSearchIndex(new ProductDao());
+
+    private final ProductDao dao;
+    // Equal scores: newest product first
+    private final SearchIndex<Integer> index = new SearchIndex<>(Comparator.reverseOrder());
+    private final Map<Integer, Doc> docs = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    ProductSearchIndex(ProductDao dao) {
+        this.dao = dao;
+    }
+
+    public static ProductSearchIndex getInstance() {
+        return instance;
+    }
+
+    /** Ids of the matching products, best match first. */
+    public List<Integer> search(String query) {
+        if (!loaded) load();
+        return index.search(query);
+    }
+
+    /**
+     * Ids of one page of matches in the given category and order, after the product
+     * {@code after} (null for the first page). Keyset on the sort key, like ProductDao.findPage;
+     * by relevance the key is (score, id), so if {@code after} no longer matches the page is empty.
+     */
+    public List<Integer> findPage(String query, String category, ProductSort sort, Product after, int limit) {
+        List<Match> matches = matches(query, category, sort);
+        Comparator<Match> order = order(sort);
+
+        int from = 0;
+        if (after != null) {
+            Match anchor;
+            if (sort == ProductSort.RELEVANCE) {
+                anchor = null;
+                for (Match m : matches) {
+                    if (m.id == after.getId()) anchor = m;
+                }
+                if (anchor == null) return List.of();
+            } else {
+                anchor = new Match(after.getId(), 0, new Doc(after));
+            }
+            while (from < matches.size() && order.compare(matches.get(from), anchor) <= 0) from++;
+        }
+
+        List<Integer> ids = new ArrayList<>(limit);
+        for (int i = from; i < matches.size() && ids.size() < limit; i++) ids.add(matches.get(i).id);
+        return ids;
+    }
+
+    public int count(String query, String category) {
+        return matches(query, category, ProductSort.RELEVANCE).size();
+    }
+
+    /** Category of an indexed product; never queries the database. */
+    public Optional<String> category(int id) {
+        Doc d = docs.get(id);
+        return d == null ? Optional.empty() : Optional.ofNullable(d.category);
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // Writes wait for a build in progress so they are applied on top of its snapshot
+    public synchronized void put(Product p) {
+        if (loaded && p.getId() > 0) index(p);
+    }
+
+    public synchronized void remove(int id) {
+        if (!loaded) return;
+        index.remove(id);
+        docs.remove(id);
+    }
+
+    /** Rebuilds from the catalog on the next search. */
+    public synchronized void invalidate() {
+        loaded = false;
+        index.clear();
+        docs.clear();
+    }
+
+    private List<Match> matches(String query, String category, ProductSort sort) {
+        if (!loaded) load();
+        boolean allCategories = category == null || category.isEmpty() || "All".equalsIgnoreCase(category);
+        String categoryKey = allCategories ? null : key(category);
+
+        List<Match> matches = new ArrayList<>();
+        for (Hit<Integer> h : index.searchHits(query)) {
+            Doc d = docs.get(h.getKey());
+            if (d == null || (categoryKey != null && !categoryKey.equals(key(d.category)))) continue;
+            matches.add(new Match(h.getKey(), h.getScore(), d));
+        }
+        if (sort != ProductSort.RELEVANCE) matches.sort(order(sort));
+        return matches;
+    }
+
+    // Same orders as the SQL in ProductDao.findPage; relevance is the index rank
+    private static Comparator<Match> order(ProductSort sort) {
+        Comparator<Match> byId = Comparator.comparingInt(m -> m.id);
+        return switch (sort) {
+            case RELEVANCE -> Comparator.comparingDouble((Match m) -> m.score).reversed().thenComparing(byId.reversed());
+            case NEWEST -> byId.reversed();
+            case PRICE_LOW -> Comparator.comparingDouble((Match m) -> m.doc.price).thenComparing(byId);
+            case PRICE_HIGH -> Comparator.comparingDouble((Match m) -> m.doc.price).thenComparing(byId).reversed();
+            case NAME -> Comparator.comparing((Match m) -> m.doc.name, String.CASE_INSENSITIVE_ORDER).thenComparing(byId);
+        };
+    }
+
+    private synchronized void load() {
+        if (loaded) return;
+        index.clear();
+        docs.clear();
+        try {
+            dao.streamAll(500, this::index);
+            loaded = true;
+        } catch (SQLException | IOException e) {
+            e.printStackTrace();
+            index.clear();
+            docs.clear();
+        }
+    }
+
+    private void index(Product p) {
+        index.put(p.getId(),
+                field(p.getName(), 3),
+                field(p.getCategory(), 2),
+                field(p.getDescription(), 1));
+        docs.put(p.getId(), new Doc(p));
+    }
+
+    private static String key(String category) {
+        return category == null ? "" : category.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // What a search needs to filter and sort a product without loading it
+    private static final class Doc {
+        final String name;
+        final String category;
+        final double price;
+
+        Doc(Product p) {
+            this.name = p.getName() == null ? "" : p.getName();
+            this.category = p.getCategory();
+            this.price = p.getPrice();
+        }
+    }
+
+    private static final class Match {
+        final int id;
+        final double score;
+        final Doc doc;
+
+        Match(int id, double score, Doc doc) {
+            this.id = id;
+            this.score = score;
+            this.doc = doc;
+        }
+    }
+}
@@ -2,32 +2,104 @@ package com.example.finalproject.service;
 
 import com.example.finalproject.dao.ProductDao;
 import com.example.finalproject.model.Product;
+import com.example.finalproject.model.ProductCard;
+import com.example.finalproject.model.ProductSort;
 import java.util.List;
+import java.util.Optional;
 
 public class ProductService {
 
     private final ProductDao dao = new ProductDao();
+    private final DiscountResolver discounts = DiscountResolver.getInstance();
+    private final ProductCatalogCache cache = ProductCatalogCache.getInstance();
+    private final ProductSearchIndex searchIndex = ProductSearchIndex.getInstance();
 
     public List<Product> getAll() {
-        return dao.getAllProducts();
+        return discounts.applyAll(cache.getAll());
+    }
+
+    public Optional<Product> getById(int id) {
+        return cache.get(id).map(discounts::apply);
+    }
+
+    public List<Product> getByIds(List<Integer> ids) {
+        return discounts.applyAll(cache.getAll(ids));
+    }
+
+    public List<Product> findPage(String keyword, String category, ProductSort sort, Product after, int limit) {
+        if (isSearch(keyword)) {
+            // The index pages over ids; only this page's products are loaded
+            return discounts.applyAll(cache.getAll(searchIndex.findPage(keyword, category, sort, after, limit)));
+        }
+        List<Product> page = dao.findPage(keyword, category, sort, after, limit);
+        cache.putAll(page);
+        return discounts.applyAll(page);
+    }
+
+    public int count(String keyword, String category) {
+        if (isSearch(keyword)) return searchIndex.count(keyword, category);
+        return dao.countProducts(keyword, category);
+    }
+
+    /** Ranked ids matching the keyword from the search index alone (any category, no database access). */
+    public List<Integer> searchIds(String keyword) {
+        return searchIndex.search(keyword);
+    }
+
+    public boolean isSearchReady() {
+        return searchIndex.isLoaded();
+    }
+
+    /** Category of a product from the search index; never queries the database. */
+    public Optional<String> peekCategory(int id) {
+        return searchIndex.category(id);
+    }
+
+    private static boolean isSearch(String keyword) {
+        return keyword != null && !keyword.isBlank();
+    }
+
+    public List<ProductCard> getCardsForPage(List<Integer> ids, int userId) {
+        List<ProductCard> cards = dao.findCards(ids, userId);
+        for (ProductCard card : cards) discounts.apply(card.getProduct());
+        return cards;
     }
 
     public void add(Product p) {
         validate(p);
         dao.insert(p);
+        cache.invalidateListing();
+        if (p.getId() > 0) searchIndex.put(p);
+        else searchIndex.invalidate();
     }
 
     public void update(Product p) {
         if (p.getId() <= 0)
             throw new IllegalArgumentException("Invalid product ID.");
         validate(p);
-        dao.update(p);
+        boolean saved;
+        try {
+            saved = dao.update(p);
+        } finally {
+            cache.invalidate(p.getId());
+        }
+        if (!saved) throw new IllegalStateException("Product could not be saved.");
+        searchIndex.put(p);
     }
 
     public void delete(int id) {
         if (id <= 0)
             throw new IllegalArgumentException("Invalid ID.");
         dao.delete(id);
+        cache.invalidate(id);
+        cache.invalidateListing();
+        searchIndex.remove(id);
+    }
+
+    public boolean decreaseStock(int productId, int quantity) {
+        boolean ok = dao.decreaseStock(productId, quantity);
+        cache.invalidate(productId);
+        return ok;
     }
 
     private void validate(Product p) {
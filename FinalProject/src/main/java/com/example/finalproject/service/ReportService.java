@@ -1,4 +1,364 @@
 package com.example.finalproject.service;
 
+import com.example.finalproject.dao.ReportDao;
+import com.example.finalproject.model.DailySale;
+import com.example.finalproject.model.TopProduct;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory sales analytics for the reports screen.
+ *
+ * Holds the sales aggregates kept by SalesAggregateDao: one cell per day and product in
+ * parallel primitive columns (day, product, category, quantity, cents), sorted by day, plus
+ * revenue per day with prefix sums. Range totals are O(1), top-N and category breakdowns
+ * scan only the cells of the window, so the screen can re-slice without going back to MySQL.
+ *
+ * Loading reads O(days x products sold) aggregate rows, never the order lines; OrderService
+ * re-reads the few cells an order touches when it is delivered or deleted.
+ */
 public class ReportService {
+    private static final ReportService instance = new ReportService(new ReportDao());
+
+    public static final String NO_CATEGORY = "Uncategorized";
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final ReportDao dao;
+
+    // Cell columns, sorted by day (epoch day); [0, size) are used
+    private int size;
+    private int[] day = new int[1024];
+    private int[] product = new int[1024];     // index into productNames
+    private int[] category = new int[1024];    // index into categoryNames
+    private int[] quantity = new int[1024];
+    private long[] cents = new long[1024];
+
+    // Dictionaries for the product and category columns
+    private final Map<Integer, Integer> productIndex = new HashMap<>();
+    private final List<String> productNames = new ArrayList<>();
+    private final Map<String, Integer> categoryIndex = new HashMap<>();
+    private final List<String> categoryNames = new ArrayList<>();
+
+    // Revenue per day from firstDay, and its prefix sums (rebuilt lazily after changes)
+    private int firstDay;
+    private long[] dailyCents = new long[0];
+    private long[] prefix;
+
+    private boolean loaded;
+
+    ReportService(ReportDao dao) {
+        this.dao = dao;
+    }
+
+    public static ReportService getInstance() {
+        return instance;
+    }
+
+    /** Loads every aggregate cell from the database, replacing what was held. */
+    public void reload() throws SQLException {
+        List<Cell> cells = new ArrayList<>();
+        dao.streamProductDays(null, null, FETCH_SIZE, (d, pid, name, cat, qty, revenue) ->
+                cells.add(new Cell((int) d.toEpochDay(), pid, name, cat, qty, Math.round(revenue * 100))));
+        // A cancelled reload (e.g. superseded by a newer Refresh) leaves what is held alone
+        if (Thread.currentThread().isInterrupted()) return;
+        synchronized (this) {
+            clear();
+            // Rows come ordered by day, so every insert is an append
+            for (Cell c : cells) put(c.day, c.productId, c.name, c.category, c.quantity, c.cents);
+            prefix = null;
+            loaded = true;
+        }
+    }
+
+    public void ensureLoaded() throws SQLException {
+        if (!isLoaded()) reload();
+    }
+
+    public synchronized boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Order event: re-reads the cells of one day for the given products, e.g. after an order of
+     * that day was delivered or deleted. Reads what was committed, so calling it twice is harmless.
+     */
+    public void refresh(LocalDate d, Collection<Integer> productIds) throws SQLException {
+        if (!isLoaded() || d == null || productIds.isEmpty()) return;
+        Map<Integer, Cell> found = new HashMap<>();
+        dao.streamProductDays(d, productIds, FETCH_SIZE, (cellDay, pid, name, cat, qty, revenue) ->
+                found.put(pid, new Cell((int) cellDay.toEpochDay(), pid, name, cat, qty, Math.round(revenue * 100))));
+        synchronized (this) {
+            int epochDay = (int) d.toEpochDay();
+            for (int pid : productIds) {
+                Cell c = found.get(pid);
+                if (c != null) put(epochDay, pid, c.name, c.category, c.quantity, c.cents);
+                else put(epochDay, pid, null, null, 0, 0);
+            }
+            prefix = null;
+        }
+    }
+
+    /** Revenue of the days [from, to], both inclusive. */
+    public synchronized double revenue(LocalDate from, LocalDate to) {
+        if (dailyCents.length == 0) return 0;
+        if (prefix == null) rebuildPrefix();
+        int a = clampDay(dayOf(from)), b = clampDay(dayOf(to) + 1);
+        return (prefix[b] - prefix[a]) / 100.0;
+    }
+
+    /** Revenue per day in [from, to], one entry per day that had sales; category null means all. */
+    public synchronized List<DailySale> dailySales(LocalDate from, LocalDate to, String categoryName) {
+        int cat = categoryFilter(categoryName);
+        List<DailySale> days = new ArrayList<>();
+        if (cat == -2) return days;
+        int start = lowerBound(dayOf(from)), end = lowerBound(dayOf(to) + 1);
+        int current = Integer.MIN_VALUE;
+        long dayCents = 0;
+        for (int i = start; i < end; i++) {
+            if (cat >= 0 && category[i] != cat) continue;
+            if (day[i] != current) {
+                if (current != Integer.MIN_VALUE && dayCents != 0) days.add(new DailySale(LocalDate.ofEpochDay(current).toString(), dayCents / 100.0));
+                current = day[i];
+                dayCents = 0;
+            }
+            dayCents += cents[i];
+        }
+        if (current != Integer.MIN_VALUE && dayCents != 0) days.add(new DailySale(LocalDate.ofEpochDay(current).toString(), dayCents / 100.0));
+        return days;
+    }
+
+    /** The n best-selling products (by quantity, then revenue) in [from, to]; category null means all. */
+    public synchronized List<TopProduct> topProducts(LocalDate from, LocalDate to, String categoryName, int n) {
+        int cat = categoryFilter(categoryName);
+        if (cat == -2 || n <= 0) return List.of();
+        int products = productNames.size();
+        long[] qty = new long[products];
+        long[] rev = new long[products];
+        int start = lowerBound(dayOf(from)), end = lowerBound(dayOf(to) + 1);
+        for (int i = start; i < end; i++) {
+            if (cat >= 0 && category[i] != cat) continue;
+            qty[product[i]] += quantity[i];
+            rev[product[i]] += cents[i];
+        }
+
+        // Bounded min-heap of the n best so far: O(products log n)
+        Comparator<Integer> better = Comparator.<Integer>comparingLong(p -> qty[p])
+                .thenComparingLong(p -> rev[p])
+                .thenComparing(Comparator.<Integer>naturalOrder().reversed());
+        PriorityQueue<Integer> best = new PriorityQueue<>(Math.min(n, Math.max(1, products)) + 1, better);
+        for (int p = 0; p < products; p++) {
+            if (qty[p] <= 0) continue;
+            best.offer(p);
+            if (best.size() > n) best.poll();
+        }
+
+        TopProduct[] top = new TopProduct[best.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            int p = best.poll();
+            top[i] = new TopProduct(productNames.get(p), (int) qty[p], rev[p] / 100.0);
+        }
+        return Arrays.asList(top);
+    }
+
+    /** Revenue per category in [from, to], highest first. */
+    public synchronized Map<String, Double> categoryRevenue(LocalDate from, LocalDate to) {
+        long[] rev = new long[categoryNames.size()];
+        int start = lowerBound(dayOf(from)), end = lowerBound(dayOf(to) + 1);
+        for (int i = start; i < end; i++) rev[category[i]] += cents[i];
+
+        Integer[] ranked = new Integer[rev.length];
+        for (int c = 0; c < ranked.length; c++) ranked[c] = c;
+        Arrays.sort(ranked, (x, y) -> Long.compare(rev[y], rev[x]));
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (int c : ranked) {
+            if (rev[c] != 0) result.put(categoryNames.get(c), rev[c] / 100.0);
+        }
+        return result;
+    }
+
+    /** Categories that have sales, in first-seen order. */
+    public synchronized List<String> getCategories() {
+        return List.copyOf(categoryNames);
+    }
+
+    /** The first day with a delivered order, or null when there are none. */
+    public synchronized LocalDate firstDay() {
+        return size == 0 ? null : LocalDate.ofEpochDay(day[0]);
+    }
+
+    public synchronized LocalDate lastDay() {
+        return size == 0 ? null : LocalDate.ofEpochDay(day[size - 1]);
+    }
+
+    private void clear() {
+        size = 0;
+        productIndex.clear();
+        productNames.clear();
+        categoryIndex.clear();
+        categoryNames.clear();
+        dailyCents = new long[0];
+        prefix = null;
+    }
+
+    // -1 = all categories, -2 = a category with no sales
+    private int categoryFilter(String name) {
+        if (name == null) return -1;
+        return categoryIndex.getOrDefault(name, -2);
+    }
+
+    // Sets one cell to the given totals; zero totals remove it. Keeps the columns sorted by day.
+    private void put(int d, int productId, String name, String categoryName, int qty, long c) {
+        Integer slot = productIndex.get(productId);
+        int at = slot == null ? -1 : find(d, slot);
+        boolean empty = qty == 0 && c == 0;
+
+        if (at >= 0) {
+            addDaily(d, c - cents[at]);
+            if (empty) {
+                removeAt(at);
+            } else {
+                if (name != null) productNames.set(slot, name);
+                category[at] = categorySlot(categoryName);
+                quantity[at] = qty;
+                cents[at] = c;
+            }
+            return;
+        }
+        if (empty) return;
+
+        grow();
+        at = lowerBound(d + 1);
+        int tail = size - at;
+        if (tail > 0) {
+            System.arraycopy(day, at, day, at + 1, tail);
+            System.arraycopy(product, at, product, at + 1, tail);
+            System.arraycopy(category, at, category, at + 1, tail);
+            System.arraycopy(quantity, at, quantity, at + 1, tail);
+            System.arraycopy(cents, at, cents, at + 1, tail);
+        }
+        size++;
+        day[at] = d;
+        product[at] = productSlot(productId, name);
+        category[at] = categorySlot(categoryName);
+        quantity[at] = qty;
+        cents[at] = c;
+        addDaily(d, c);
+    }
+
+    // Index of the cell for (day, product slot), or -1; a day holds at most one cell per product
+    private int find(int d, int slot) {
+        for (int i = lowerBound(d); i < size && day[i] == d; i++) {
+            if (product[i] == slot) return i;
+        }
+        return -1;
+    }
+
+    private void removeAt(int at) {
+        int tail = size - at - 1;
+        if (tail > 0) {
+            System.arraycopy(day, at + 1, day, at, tail);
+            System.arraycopy(product, at + 1, product, at, tail);
+            System.arraycopy(category, at + 1, category, at, tail);
+            System.arraycopy(quantity, at + 1, quantity, at, tail);
+            System.arraycopy(cents, at + 1, cents, at, tail);
+        }
+        size--;
+    }
+
+    private int productSlot(int productId, String name) {
+        Integer slot = productIndex.get(productId);
+        if (slot != null) return slot;
+        int s = productNames.size();
+        productNames.add(name != null ? name : "Product #" + productId);
+        productIndex.put(productId, s);
+        return s;
+    }
+
+    private int categorySlot(String name) {
+        String key = name == null || name.isBlank() ? NO_CATEGORY : name.trim();
+        return categoryIndex.computeIfAbsent(key, k -> {
+            categoryNames.add(k);
+            return categoryNames.size() - 1;
+        });
+    }
+
+    private void grow() {
+        if (size < day.length) return;
+        int n = day.length * 2;
+        day = Arrays.copyOf(day, n);
+        product = Arrays.copyOf(product, n);
+        category = Arrays.copyOf(category, n);
+        quantity = Arrays.copyOf(quantity, n);
+        cents = Arrays.copyOf(cents, n);
+    }
+
+    private void addDaily(int d, long c) {
+        if (dailyCents.length == 0) {
+            firstDay = d;
+            dailyCents = new long[1];
+        } else if (d < firstDay) {
+            long[] grown = new long[dailyCents.length + (firstDay - d)];
+            System.arraycopy(dailyCents, 0, grown, firstDay - d, dailyCents.length);
+            dailyCents = grown;
+            firstDay = d;
+        } else if (d - firstDay >= dailyCents.length) {
+            dailyCents = Arrays.copyOf(dailyCents, d - firstDay + 1);
+        }
+        dailyCents[d - firstDay] += c;
+    }
+
+    private void rebuildPrefix() {
+        prefix = new long[dailyCents.length + 1];
+        for (int i = 0; i < dailyCents.length; i++) prefix[i + 1] = prefix[i] + dailyCents[i];
+    }
+
+    // Index into prefix for an absolute day
+    private int clampDay(int d) {
+        return Math.max(0, Math.min(dailyCents.length, d - firstDay));
+    }
+
+    // First cell whose day is >= d
+    private int lowerBound(int d) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (day[mid] < d) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int dayOf(LocalDate d) {
+        return (int) d.toEpochDay();
+    }
+
+    // One aggregate row read from the database before it is put into the columns
+    private static final class Cell {
+        final int day;
+        final int productId;
+        final String name;
+        final String category;
+        final int quantity;
+        final long cents;
+
+        Cell(int day, int productId, String name, String category, int quantity, long cents) {
+            this.day = day;
+            this.productId = productId;
+            this.name = name;
+            this.category = category;
+            this.quantity = quantity;
+            this.cents = cents;
+        }
+    }
 }
@@ -0,0 +1,80 @@
+package com.example.finalproject.service;
+
+import com.example.finalproject.dao.ReservationDao;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds stock for carts between "Add to Cart" and checkout.
+ * A reservation lasts -Dcart.reservation.ttlMinutes (default 15) after the last change to the
+ * cart; a background sweeper gives expired reservations back to stock every
+ * -Dcart.reservation.sweepSeconds (default 60). OrderDao.saveOrder turns them into the order.
+ */
+public class StockReservationService {
+    private static final StockReservationService instance = new StockReservationService(
+            Long.getLong("cart.reservation.ttlMinutes", 15L),
+            Long.getLong("cart.reservation.sweepSeconds", 60L));
+
+    private static final int SWEEP_BATCH = 500;
+
+    private final ReservationDao dao = new ReservationDao();
+    private final ProductCatalogCache catalog = ProductCatalogCache.getInstance();
+    private final long ttlMs;
+    private final long sweepSeconds;
+    private ScheduledExecutorService sweeper;
+
+    private StockReservationService(long ttlMinutes, long sweepSeconds) {
+        this.ttlMs = TimeUnit.MINUTES.toMillis(ttlMinutes);
+        this.sweepSeconds = sweepSeconds;
+    }
+
+    public static StockReservationService getInstance() {
+        return instance;
+    }
+
+    /** Takes qty units out of stock for the user's cart; false when not enough are left. */
+    public boolean reserve(int userId, int productId, int qty) throws SQLException {
+        boolean ok = dao.reserve(userId, productId, qty, new Timestamp(System.currentTimeMillis() + ttlMs));
+        if (ok) catalog.invalidate(productId);
+        return ok;
+    }
+
+    /** Gives the user's reserved units of the product back, e.g. when it is removed from the cart. */
+    public void release(int userId, int productId) throws SQLException {
+        if (dao.release(userId, productId) > 0) catalog.invalidate(productId);
+    }
+
+    public synchronized void start() {
+        if (sweeper != null) return;
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reservation-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stop() {
+        if (sweeper != null) sweeper.shutdownNow();
+        sweeper = null;
+    }
+
+    /** Returns the stock of every expired reservation; runs on the sweeper thread. */
+    public void sweep() {
+        try {
+            List<Integer> released;
+            do {
+                released = dao.releaseExpired(new Timestamp(System.currentTimeMillis()), SWEEP_BATCH);
+                for (int productId : released) catalog.invalidate(productId);
+            } while (released.size() == SWEEP_BATCH);
+        } catch (SQLException e) {
+            // Lock conflicts with a checkout are retried on the next run
+            e.printStackTrace();
+        }
+    }
+}
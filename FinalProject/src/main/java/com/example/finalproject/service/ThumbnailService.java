@@ -0,0 +1,177 @@
+package com.example.finalproject.service;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores product images by content hash and pre-renders the sizes the UI shows.
+ *
+ * ingest() copies a chosen file to uploads/<sha256>.<ext> (the same picture chosen twice is
+ * stored once) and writes uploads/thumbs/<sha256>_<size>.png for every size in SIZES.
+ * Screens then decode a few-KB thumbnail instead of the multi-megabyte original.
+ * Images saved before this existed get their thumbnails on first use.
+ */
+public class ThumbnailService {
+    private static final ThumbnailService instance = new ThumbnailService(Path.of("uploads"));
+
+    /** Card/cell sizes used by the screens (admin table, wishlist, catalog). */
+    public static final int[] SIZES = {60, 100, 120};
+
+    private final Path uploadsDir;
+    private final Path thumbsDir;
+    // imagePath -> content hash, so legacy files are hashed once per modification
+    private final Map<String, HashEntry> hashes = new ConcurrentHashMap<>();
+    // One writer per thumbnail file at a time
+    private final Map<Path, Object> writing = new ConcurrentHashMap<>();
+
+    private ThumbnailService(Path uploadsDir) {
+        this.uploadsDir = uploadsDir;
+        this.thumbsDir = uploadsDir.resolve("thumbs");
+    }
+
+    public static ThumbnailService getInstance() {
+        return instance;
+    }
+
+    /** Copies the file into uploads under its content hash, renders its thumbnails and returns the stored path. */
+    public String ingest(Path source) throws IOException {
+        String hash = hash(source);
+        Path stored = uploadsDir.resolve(hash + extension(source)).toAbsolutePath();
+        if (!Files.exists(stored)) {
+            Files.createDirectories(uploadsDir);
+            Path tmp = Files.createTempFile(uploadsDir, hash, ".tmp");
+            Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, stored, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        hashes.put(stored.toString(), new HashEntry(hash, Files.getLastModifiedTime(stored).toMillis()));
+        ensureThumbnails(stored.toString());
+        return stored.toString();
+    }
+
+    /** Renders any missing thumbnail of the image; cheap when they all exist. */
+    public void ensureThumbnails(String imagePath) {
+        if (imagePath == null || imagePath.isBlank() || !Files.isRegularFile(Path.of(imagePath))) return;
+        for (int size : SIZES) thumbnailFor(imagePath, size);
+    }
+
+    /**
+     * Path of the smallest stored thumbnail that covers the requested size, rendering it if needed,
+     * or null when the size is larger than every thumbnail or the image cannot be read.
+     */
+    public String thumbnailFor(String imagePath, int size) {
+        int thumbSize = -1;
+        for (int s : SIZES) {
+            if (s >= size) {
+                thumbSize = s;
+                break;
+            }
+        }
+        if (thumbSize < 0 || imagePath == null || imagePath.isBlank()) return null;
+
+        try {
+            Path source = Path.of(imagePath);
+            if (!Files.isRegularFile(source)) return null;
+            Path thumb = thumbsDir.resolve(hashOf(source) + "_" + thumbSize + ".png");
+            if (Files.exists(thumb)) return thumb.toAbsolutePath().toString();
+
+            synchronized (writing.computeIfAbsent(thumb, k -> new Object())) {
+                try {
+                    if (!Files.exists(thumb) && !render(source, thumb, thumbSize)) return null;
+                } finally {
+                    writing.remove(thumb);
+                }
+            }
+            return thumb.toAbsolutePath().toString();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    private boolean render(Path source, Path thumb, int size) throws IOException {
+        BufferedImage original = ImageIO.read(source.toFile());
+        if (original == null) return false;   // format ImageIO cannot read; callers use the original
+
+        BufferedImage scaled = scale(original, size);
+        Files.createDirectories(thumbsDir);
+        Path tmp = Files.createTempFile(thumbsDir, "thumb", ".tmp");
+        ImageIO.write(scaled, "png", tmp.toFile());
+        Files.move(tmp, thumb, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return true;
+    }
+
+    // Fits the image in size x size keeping its ratio; halves repeatedly so large photos stay smooth
+    private static BufferedImage scale(BufferedImage image, int size) {
+        double ratio = Math.min(1.0, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        int targetW = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int targetH = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+
+        BufferedImage current = image;
+        int w = image.getWidth();
+        int h = image.getHeight();
+        do {
+            w = Math.max(targetW, w / 2);
+            h = Math.max(targetH, h / 2);
+            BufferedImage next = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = next.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(current, 0, 0, w, h, null);
+            g.dispose();
+            current = next;
+        } while (w != targetW || h != targetH);
+        return current;
+    }
+
+    private String hashOf(Path source) throws IOException {
+        long modified = Files.getLastModifiedTime(source).toMillis();
+        String key = source.toAbsolutePath().toString();
+        HashEntry entry = hashes.get(key);
+        if (entry == null || entry.modified != modified) {
+            entry = new HashEntry(hash(source), modified);
+            hashes.put(key, entry);
+        }
+        return entry.hash;
+    }
+
+    private static String hash(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int n;
+            while ((n = in.read(buffer)) > 0) digest.update(buffer, 0, n);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String extension(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot).toLowerCase(Locale.ROOT);
+    }
+
+    private static final class HashEntry {
+        final String hash;
+        final long modified;
+
+        HashEntry(String hash, long modified) {
+            this.hash = hash;
+            this.modified = modified;
+        }
+    }
+}
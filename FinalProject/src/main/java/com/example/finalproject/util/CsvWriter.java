@@ -0,0 +1,90 @@
+package com.example.finalproject.util;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal RFC 4180 CSV writer over a byte channel, buffered so that rows cost no syscalls.
+ * Fields are appended one by one (no per-row string building) and quoted only when needed.
+ */
+public class CsvWriter implements Closeable {
+
+    private final BufferedWriter out;
+    private boolean rowStarted;
+
+    public CsvWriter(WritableByteChannel channel, int bufferSize) {
+        this.out = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), bufferSize);
+    }
+
+    public CsvWriter field(String value) throws IOException {
+        separator();
+        if (value == null) return this;
+        if (needsQuotes(value)) {
+            out.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') out.write('"');
+                out.write(c);
+            }
+            out.write('"');
+        } else {
+            out.write(value);
+        }
+        return this;
+    }
+
+    public CsvWriter field(long value) throws IOException {
+        separator();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    /** Writes the amount with exactly two decimals, e.g. 12.50. */
+    public CsvWriter money(double value) throws IOException {
+        separator();
+        long cents = Math.round(value * 100);
+        if (cents < 0) {
+            out.write('-');
+            cents = -cents;
+        }
+        out.write(Long.toString(cents / 100));
+        out.write('.');
+        long rest = cents % 100;
+        if (rest < 10) out.write('0');
+        out.write(Long.toString(rest));
+        return this;
+    }
+
+    public void endRow() throws IOException {
+        out.write('\n');
+        rowStarted = false;
+    }
+
+    /** Writes a whole row of text fields, e.g. the header. */
+    public void row(String... fields) throws IOException {
+        for (String f : fields) field(f);
+        endRow();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void separator() throws IOException {
+        if (rowStarted) out.write(',');
+        rowStarted = true;
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.finalproject.util;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Runs DAO/service calls off the JavaFX Application Thread.
+ * Work runs on virtual threads (the connection pool bounds how many hit MySQL at once)
+ * and callbacks are marshalled back to the FX thread with Platform.runLater.
+ */
+public class FxAsync {
+
+    private static final ExecutorService EXECUTOR =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("db-worker-", 0).factory());
+
+    private FxAsync() {}
+
+    /** Runs the work in the background. Cancelling the future interrupts the worker. */
+    public static <T> CompletableFuture<T> supply(Callable<T> work) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task = EXECUTOR.submit(() -> {
+            try {
+                result.complete(work.call());
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        result.whenComplete((r, t) -> {
+            if (result.isCancelled()) task.cancel(true);
+        });
+        return result;
+    }
+
+    /** Fire-and-forget background write; failures are printed since nobody waits on them. */
+    public static CompletableFuture<Void> run(ThrowingRunnable work) {
+        CompletableFuture<Void> future = supply(() -> {
+            work.run();
+            return null;
+        });
+        future.whenComplete((r, t) -> {
+            if (t != null && !future.isCancelled()) unwrap(t).printStackTrace();
+        });
+        return future;
+    }
+
+    /** Runs the work in the background and hands the result or error to the FX thread. */
+    public static <T> CompletableFuture<T> load(Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        CompletableFuture<T> future = supply(work);
+        future.whenComplete((r, t) -> {
+            if (future.isCancelled()) return;
+            Platform.runLater(() -> {
+                if (t != null) onError.accept(unwrap(t));
+                else onSuccess.accept(r);
+            });
+        });
+        return future;
+    }
+
+    public static <T> CompletableFuture<T> load(Callable<T> work, Consumer<T> onSuccess) {
+        return load(work, onSuccess, Throwable::printStackTrace);
+    }
+
+    static Throwable unwrap(Throwable t) {
+        while ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            t = t.getCause();
+        }
+        return t;
+    }
+
+    @FunctionalInterface
+    public interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
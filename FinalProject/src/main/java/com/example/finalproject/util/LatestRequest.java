@@ -0,0 +1,48 @@
+package com.example.finalproject.util;
+
+import javafx.application.Platform;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Keeps only the newest background load of a screen alive.
+ * Submitting a new request cancels the previous one, and a result that arrives after it
+ * was superseded is dropped instead of overwriting newer data on screen.
+ */
+public class LatestRequest {
+    private CompletableFuture<?> current;
+    private long generation;
+
+    public synchronized <T> CompletableFuture<T> submit(Callable<T> work, Consumer<T> onSuccess, Consumer<Throwable> onError) {
+        if (current != null) current.cancel(true);
+        long gen = ++generation;
+
+        CompletableFuture<T> future = FxAsync.supply(work);
+        current = future;
+        future.whenComplete((r, t) -> {
+            if (future.isCancelled()) return;
+            Platform.runLater(() -> {
+                if (!isLatest(gen)) return;
+                if (t != null) onError.accept(FxAsync.unwrap(t));
+                else onSuccess.accept(r);
+            });
+        });
+        return future;
+    }
+
+    public <T> CompletableFuture<T> submit(Callable<T> work, Consumer<T> onSuccess) {
+        return submit(work, onSuccess, Throwable::printStackTrace);
+    }
+
+    public synchronized void cancel() {
+        generation++;
+        if (current != null) current.cancel(true);
+        current = null;
+    }
+
+    private synchronized boolean isLatest(long gen) {
+        return gen == generation;
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.finalproject.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index for full-text search over small documents.
+ *
+ * Each document is a set of weighted fields (e.g. name x3, category x2, description x1).
+ * A query matches documents containing every query term, where a term matches an indexed
+ * token exactly, as a prefix, or within a small edit distance (typos). Results are ranked
+ * by field weight, match quality and how rare the token is (idf).
+ *
+ * Documents can be added, replaced and removed one at a time; it is safe for concurrent use.
+ */
+public class SearchIndex<K> {
+
+    private static final double EXACT = 1.0;
+    private static final double PREFIX = 0.6;
+    private static final double FUZZY = 0.35;
+
+    // token -> (document -> weight of the best field containing it)
+    private final TreeMap<String, Map<K, Double>> postings = new TreeMap<>();
+    // document -> its tokens, so a document can be removed or replaced
+    private final Map<K, Set<String>> documents = new HashMap<>();
+    // token length -> tokens, to limit fuzzy matching to plausible candidates
+    private final Map<Integer, Set<String>> byLength = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Order of documents with the same score (null keeps whatever order the map gives)
+    private final Comparator<? super K> tieOrder;
+
+    public SearchIndex() {
+        this(null);
+    }
+
+    public SearchIndex(Comparator<? super K> tieOrder) {
+        this.tieOrder = tieOrder;
+    }
+
+    public static Field field(String text, double weight) {
+        return new Field(text, weight);
+    }
+
+    /** Adds or replaces a document; fields with null text are skipped. */
+    public void put(K key, Field... fields) {
+        Map<String, Double> tokens = new HashMap<>();
+        for (Field f : fields) {
+            for (String t : tokenize(f.text)) tokens.merge(t, f.weight, Math::max);
+        }
+
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(key);
+            tokens.forEach((t, w) -> {
+                Map<K, Double> docs = postings.computeIfAbsent(t, x -> new HashMap<>());
+                if (docs.isEmpty()) byLength.computeIfAbsent(t.length(), x -> new HashSet<>()).add(t);
+                docs.put(key, w);
+            });
+            documents.put(key, tokens.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(K key) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documents.clear();
+            byLength.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keys of the documents matching every term of the query, best match first.
+     * An empty query matches nothing; callers list everything another way.
+     */
+    public List<K> search(String query) {
+        List<Hit<K>> hits = searchHits(query);
+        List<K> keys = new ArrayList<>(hits.size());
+        for (Hit<K> h : hits) keys.add(h.key);
+        return keys;
+    }
+
+    /** Like {@link #search} but with each document's score, e.g. to page through the ranking. */
+    public List<Hit<K>> searchHits(String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) return List.of();
+
+        lock.readLock().lock();
+        try {
+            Map<K, Double> scores = null;
+            for (String term : terms) {
+                Map<K, Double> termScores = match(term);
+                if (scores == null) {
+                    scores = termScores;
+                } else {
+                    Map<K, Double> both = new HashMap<>();
+                    for (Map.Entry<K, Double> e : scores.entrySet()) {
+                        Double s = termScores.get(e.getKey());
+                        if (s != null) both.put(e.getKey(), e.getValue() + s);
+                    }
+                    scores = both;
+                }
+                if (scores.isEmpty()) return List.of();
+            }
+
+            List<Hit<K>> hits = new ArrayList<>(scores.size());
+            for (Map.Entry<K, Double> e : scores.entrySet()) hits.add(new Hit<>(e.getKey(), e.getValue()));
+            hits.sort(rankOrder());
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Best score first, then the tie order given at construction. */
+    public Comparator<Hit<K>> rankOrder() {
+        Comparator<Hit<K>> order = Comparator.comparingDouble((Hit<K> h) -> h.score).reversed();
+        return tieOrder == null ? order : order.thenComparing(h -> h.key, tieOrder);
+    }
+
+    // Best score per document for one query term
+    private Map<K, Double> match(String term) {
+        Map<K, Double> scores = new HashMap<>();
+
+        // exact and prefix hits come from one range of the sorted dictionary
+        for (Map.Entry<String, Map<K, Double>> e : postings.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+            double quality = e.getKey().length() == term.length() ? EXACT : PREFIX;
+            collect(scores, e.getValue(), quality);
+        }
+
+        int maxEdits = term.length() >= 8 ? 2 : term.length() >= 4 ? 1 : 0;
+        for (int len = term.length() - maxEdits; maxEdits > 0 && len <= term.length() + maxEdits; len++) {
+            for (String token : byLength.getOrDefault(len, Set.of())) {
+                if (token.startsWith(term)) continue;
+                // typo in the part typed so far also counts, e.g. "wirless" -> "wireless"
+                String typed = token.length() > term.length() ? token.substring(0, term.length()) : token;
+                if (withinDistance(term, token, maxEdits) || withinDistance(term, typed, maxEdits)) {
+                    collect(scores, postings.get(token), FUZZY);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private void collect(Map<K, Double> scores, Map<K, Double> docs, double quality) {
+        double idf = Math.log(1 + (double) Math.max(1, documents.size()) / docs.size());
+        for (Map.Entry<K, Double> d : docs.entrySet()) {
+            scores.merge(d.getKey(), d.getValue() * quality * idf, Math::max);
+        }
+    }
+
+    private void removeUnlocked(K key) {
+        Set<String> tokens = documents.remove(key);
+        if (tokens == null) return;
+        for (String t : tokens) {
+            Map<K, Double> docs = postings.get(t);
+            if (docs == null) continue;
+            docs.remove(key);
+            if (docs.isEmpty()) {
+                postings.remove(t);
+                Set<String> sameLength = byLength.get(t.length());
+                if (sameLength != null) sameLength.remove(t);
+            }
+        }
+    }
+
+    public boolean contains(K key) {
+        lock.readLock().lock();
+        try {
+            return documents.containsKey(key);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Lowercase, accent-free alphanumeric tokens of the text, in order, without duplicates. */
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) return List.of();
+        String plain = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}+", "")
+                .toLowerCase(Locale.ROOT);
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String t : plain.split("[^\\p{L}\\p{N}]+")) {
+            if (!t.isEmpty()) tokens.add(t);
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    // Levenshtein distance with transpositions, stopping as soon as it exceeds max
+    static boolean withinDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) return false;
+        int[] prev2 = new int[b.length() + 1];
+        int[] prev = new int[b.length() + 1];
+        int[] cur = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) prev[j] = j;
+
+        for (int i = 1; i <= a.length(); i++) {
+            cur[0] = i;
+            int rowMin = cur[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int d = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d = Math.min(d, prev2[j - 2] + 1);
+                }
+                cur[j] = d;
+                rowMin = Math.min(rowMin, d);
+            }
+            if (rowMin > max) return false;
+            int[] t = prev2;
+            prev2 = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[b.length()] <= max;
+    }
+
+    public static final class Hit<K> {
+        final K key;
+        final double score;
+
+        public Hit(K key, double score) {
+            this.key = key;
+            this.score = score;
+        }
+
+        public K getKey() { return key; }
+        public double getScore() { return score; }
+    }
+
+    public static final class Field {
+        final String text;
+        final double weight;
+
+        private Field(String text, double weight) {
+            this.text = text;
+            this.weight = weight;
+        }
+    }
+}
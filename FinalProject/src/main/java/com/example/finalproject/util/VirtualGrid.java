@@ -0,0 +1,157 @@
+package com.example.finalproject.util;
+
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.layout.HBox;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Scrollable grid of cards that only builds nodes for the rows on screen.
+ * It is a ListView whose rows hold as many cards as fit the width; while scrolling,
+ * row cells and the cards inside them are reused and just re-bound to other items.
+ *
+ * Usage: setCardFactory(...), then setAll/addAll the items. setOnNearEnd is called when
+ * the user scrolls close to the last row, for loading more.
+ */
+public final class VirtualGrid<T> extends ListView<List<T>> {
+
+    /** One reusable card; update() re-binds it to another item. */
+    public interface Card<T> {
+        Node getNode();
+        void update(T item);
+    }
+
+    private final List<T> source = new ArrayList<>();
+    private Supplier<? extends Card<T>> cardFactory;
+    private Runnable onNearEnd;
+    private double cardWidth = 200;
+    private double gap = 24;
+    private int columns = 1;
+
+    public VirtualGrid() {
+        getStyleClass().add("virtual-grid");
+        setFocusTraversable(false);
+        setSelectionModel(null);
+        setCellFactory(list -> new RowCell());
+        widthProperty().addListener((obs, oldVal, newVal) -> {
+            if (computeColumns() != columns) rebuildRows();
+        });
+    }
+
+    public void setCardFactory(Supplier<? extends Card<T>> cardFactory) {
+        this.cardFactory = cardFactory;
+    }
+
+    public void setOnNearEnd(Runnable onNearEnd) {
+        this.onNearEnd = onNearEnd;
+    }
+
+    public double getCardWidth() { return cardWidth; }
+    public void setCardWidth(double cardWidth) { this.cardWidth = cardWidth; }
+
+    public double getGap() { return gap; }
+    public void setGap(double gap) { this.gap = gap; }
+
+    /** The items in display order (read-only view). */
+    public List<T> getSource() {
+        return Collections.unmodifiableList(source);
+    }
+
+    public int getSourceSize() {
+        return source.size();
+    }
+
+    public void setAll(List<T> items) {
+        source.clear();
+        source.addAll(items);
+        rebuildRows();
+        if (!getItems().isEmpty()) scrollTo(0);
+    }
+
+    /** Appends items; only the last partial row and the new rows change, the scroll position stays. */
+    public void addAll(List<T> items) {
+        if (items.isEmpty()) return;
+        int firstChanged = source.size() / columns;
+        source.addAll(items);
+
+        ObservableList<List<T>> rows = getItems();
+        List<List<T>> tail = new ArrayList<>();
+        for (int from = firstChanged * columns; from < source.size(); from += columns) {
+            tail.add(new ArrayList<>(source.subList(from, Math.min(source.size(), from + columns))));
+        }
+        if (firstChanged < rows.size()) rows.remove(firstChanged, rows.size());
+        rows.addAll(tail);
+    }
+
+    /** Re-binds the card showing oldItem to newItem (e.g. after it was reloaded). */
+    public void replace(T oldItem, T newItem) {
+        int i = source.indexOf(oldItem);
+        if (i < 0) return;
+        source.set(i, newItem);
+        List<T> row = new ArrayList<>(getItems().get(i / columns));
+        row.set(i % columns, newItem);
+        getItems().set(i / columns, row);
+    }
+
+    public void remove(T item) {
+        if (source.remove(item)) rebuildRows();
+    }
+
+    private void rebuildRows() {
+        columns = computeColumns();
+        List<List<T>> rows = new ArrayList<>();
+        for (int from = 0; from < source.size(); from += columns) {
+            rows.add(new ArrayList<>(source.subList(from, Math.min(source.size(), from + columns))));
+        }
+        getItems().setAll(rows);
+    }
+
+    private int computeColumns() {
+        // leave room for the vertical scroll bar
+        double usable = getWidth() - 40;
+        return Math.max(1, (int) ((usable + gap) / (cardWidth + gap)));
+    }
+
+    private class RowCell extends ListCell<List<T>> {
+        private final HBox box = new HBox();
+        private final List<Card<T>> cards = new ArrayList<>();
+
+        RowCell() {
+            box.setAlignment(Pos.CENTER);
+            box.spacingProperty().set(gap);
+            setStyle("-fx-background-color: transparent; -fx-padding: " + gap / 2 + " 0 " + gap / 2 + " 0;");
+        }
+
+        @Override
+        protected void updateItem(List<T> row, boolean empty) {
+            super.updateItem(row, empty);
+            if (empty || row == null || cardFactory == null) {
+                setGraphic(null);
+                return;
+            }
+
+            while (cards.size() < row.size()) cards.add(cardFactory.get());
+            List<Node> nodes = new ArrayList<>(row.size());
+            for (int i = 0; i < row.size(); i++) {
+                Card<T> card = cards.get(i);
+                card.update(row.get(i));
+                nodes.add(card.getNode());
+            }
+            box.getChildren().setAll(nodes);
+            setGraphic(box);
+
+            // Ask for more once one of the last rows becomes visible (not during this layout pass)
+            if (onNearEnd != null && getIndex() >= getListView().getItems().size() - 2) {
+                Platform.runLater(onNearEnd);
+            }
+        }
+    }
+}
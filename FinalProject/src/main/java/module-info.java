@@ -2,6 +2,7 @@ module com.example.finalproject {
     requires javafx.controls;
     requires javafx.fxml;
     requires java.sql;
+    requires java.desktop;
 
     requires com.auth0.jwt;
     requires jbcrypt;
@@ -10,8 +11,10 @@ module com.example.finalproject {
 
     opens com.example.finalproject to javafx.fxml;
     opens com.example.finalproject.controller to javafx.fxml;
+    opens com.example.finalproject.util to javafx.fxml;
     opens com.example.finalproject.model to javafx.base;
 
     exports com.example.finalproject;
     exports com.example.finalproject.controller;
+    exports com.example.finalproject.util;
 }
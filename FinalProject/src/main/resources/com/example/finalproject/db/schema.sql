@@ -0,0 +1,61 @@
+-- Applied at startup by SchemaMigrator. Every statement must be safe to re-run:
+-- "already exists" errors are ignored.
+
+-- Catalog paging (ProductDao.findPage): category filter + keyset ordering
+CREATE INDEX idx_products_category_id ON products (category, id);
+CREATE INDEX idx_products_price_id ON products (price, id);
+CREATE INDEX idx_products_category_price_id ON products (category, price, id);
+CREATE INDEX idx_products_name_id ON products (name, id);
+
+-- DiscountResolver loads promotions that have not expired yet
+CREATE INDEX idx_promotions_end_date ON promotions (end_date);
+
+-- Cart stock reservations (StockReservationService): stock is taken from products.stock
+-- when an item is added to a cart and given back if the reservation expires
+CREATE TABLE IF NOT EXISTS stock_reservations (
+    id INT AUTO_INCREMENT PRIMARY KEY,
+    user_id INT NOT NULL,
+    product_id INT NOT NULL,
+    quantity INT NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    UNIQUE KEY uq_reservations_user_product (user_id, product_id),
+    KEY idx_reservations_expires_at (expires_at)
+);
+-- The expiry sweep locks one product's expired reservations at a time
+CREATE INDEX idx_reservations_product_expires ON stock_reservations (product_id, expires_at);
+
+-- Saved carts (CartService), restored at login
+CREATE TABLE IF NOT EXISTS cart_items (
+    user_id INT NOT NULL,
+    product_id INT NOT NULL,
+    quantity INT NOT NULL,
+    added_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (user_id, product_id)
+);
+
+-- Sales aggregates (SalesAggregateDao) for the reports screen: kept up to date when an order
+-- is delivered or a delivered order is deleted, and rebuilt from history when the
+-- sales_aggregates_meta row is missing or older than the code
+CREATE TABLE IF NOT EXISTS sales_product_daily (
+    day DATE NOT NULL,
+    product_id INT NOT NULL,
+    quantity INT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14,2) NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, product_id)
+);
+
+-- Per-day totals are summed from sales_product_daily now
+DROP TABLE IF EXISTS sales_daily;
+
+CREATE TABLE IF NOT EXISTS sales_product (
+    product_id INT PRIMARY KEY,
+    quantity INT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14,2) NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS sales_aggregates_meta (
+    id TINYINT PRIMARY KEY,
+    rebuilt_at TIMESTAMP NOT NULL,
+    version INT NOT NULL DEFAULT 1
+);
+ALTER TABLE sales_aggregates_meta ADD COLUMN version INT NOT NULL DEFAULT 1;
@@ -0,0 +1,171 @@
+package com.example.finalproject.dao;
+
+import com.example.finalproject.model.Order;
+import com.example.finalproject.model.OrderItem;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Times the checkout write path (OrderDao.insertOrder) against the one it replaced for carts
+ * of 1, 10 and 100 lines. Every run happens in a transaction that is rolled back, so the
+ * database is left as it was.
+ *
+ * Needs a dev database with one user and up to 100 products in stock, so it only runs when asked:
+ *   mvn test -Dtest=OrderSaveBenchmark -Dbenchmark=true -Dbenchmark.iterations=200
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class OrderSaveBenchmark {
+
+    private static final int[] CART_SIZES = {1, 10, 100};
+
+    private final OrderDao dao = new OrderDao();
+    private final ShippingDao shipping = new ShippingDao();
+
+    @AfterAll
+    static void shutdown() {
+        DBConnection.shutdown();
+    }
+
+    @Test
+    void compareWritePaths() throws SQLException {
+        int iterations = Integer.getInteger("benchmark.iterations", 200);
+        int userId;
+        List<Integer> productIds = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             Statement st = conn.createStatement()) {
+            ResultSet rs = st.executeQuery("SELECT id FROM users ORDER BY id LIMIT 1");
+            assertTrue(rs.next(), "No users to place orders for");
+            userId = rs.getInt(1);
+            rs = st.executeQuery("SELECT id FROM products WHERE stock > 0 ORDER BY id LIMIT 100");
+            while (rs.next()) productIds.add(rs.getInt(1));
+        }
+        assertFalse(productIds.isEmpty(), "No products in stock");
+
+        System.out.printf("%-6s %14s %14s %8s%n", "lines", "previous (ms)", "current (ms)", "speedup");
+        for (int size : CART_SIZES) {
+            Order order = order(userId, productIds.subList(0, Math.min(size, productIds.size())));
+            // Warm up the pool, statement caches and the JIT before measuring
+            time(iterations / 10 + 1, conn -> savePrevious(conn, order));
+            time(iterations / 10 + 1, conn -> dao.insertOrder(conn, order));
+
+            double previous = time(iterations, conn -> savePrevious(conn, order));
+            double current = time(iterations, conn -> dao.insertOrder(conn, order));
+            System.out.printf("%-6d %14.3f %14.3f %7.1fx%n", order.getItems().size(), previous, current, previous / current);
+        }
+    }
+
+    private static Order order(int userId, List<Integer> productIds) {
+        List<OrderItem> items = new ArrayList<>();
+        for (int id : productIds) items.add(new OrderItem(0, 0, id, 1, 9.99));
+        Order order = new Order();
+        order.setUserId(userId);
+        order.setItems(items);
+        order.setTotal(9.99 * items.size());
+        order.setStatus("PENDING");
+        order.setShippingAddress("Benchmark St. 1");
+        return order;
+    }
+
+    // Average milliseconds per saved order
+    private static double time(int iterations, Step step) throws SQLException {
+        long total = 0;
+        for (int i = 0; i < iterations; i++) {
+            try (Connection conn = DBConnection.getConnection()) {
+                conn.setAutoCommit(false);
+                try {
+                    long start = System.nanoTime();
+                    step.run(conn);
+                    total += System.nanoTime() - start;
+                } finally {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                }
+            }
+        }
+        return total / 1e6 / iterations;
+    }
+
+    /**
+     * The path before insertOrder, statement for statement: the order insert, the items as one
+     * JDBC batch and the per-line reservation commit (lock product, lock reservation, take stock,
+     * delete). The shipping row it used to leave out is added so both paths write the same rows.
+     */
+    private void savePrevious(Connection conn, Order order) throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(
+                     "INSERT INTO orders(user_id,total,status) VALUES(?,?,?)",
+                     Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement itemStmt = conn.prepareStatement(
+                     "INSERT INTO order_items(order_id,product_id,quantity,price) VALUES(?,?,?,?)")) {
+            ps.setInt(1, order.getUserId());
+            ps.setDouble(2, order.getTotal());
+            ps.setString(3, order.getStatus());
+            ps.executeUpdate();
+            ResultSet rs = ps.getGeneratedKeys();
+            if (rs.next()) order.setId(rs.getInt(1));
+
+            for (OrderItem item : order.getItems()) {
+                itemStmt.setInt(1, order.getId());
+                itemStmt.setInt(2, item.getProductId());
+                itemStmt.setInt(3, item.getQuantity());
+                itemStmt.setDouble(4, item.getPrice());
+                itemStmt.addBatch();
+            }
+            itemStmt.executeBatch();
+        }
+
+        List<OrderItem> ordered = new ArrayList<>(order.getItems());
+        ordered.sort(Comparator.comparingInt(OrderItem::getProductId));
+        for (OrderItem item : ordered) {
+            try (PreparedStatement lock = conn.prepareStatement("SELECT id FROM products WHERE id = ? FOR UPDATE")) {
+                lock.setInt(1, item.getProductId());
+                lock.executeQuery().close();
+            }
+            int reserved;
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT quantity FROM stock_reservations WHERE user_id = ? AND product_id = ? FOR UPDATE")) {
+                ps.setInt(1, order.getUserId());
+                ps.setInt(2, item.getProductId());
+                ResultSet rs = ps.executeQuery();
+                reserved = rs.next() ? rs.getInt(1) : 0;
+            }
+            int missing = item.getQuantity() - reserved;
+            if (missing > 0) {
+                try (PreparedStatement take = conn.prepareStatement(
+                        "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?")) {
+                    take.setInt(1, missing);
+                    take.setInt(2, item.getProductId());
+                    take.setInt(3, missing);
+                    if (take.executeUpdate() == 0) throw new OutOfStockException(item.getProductId());
+                }
+            } else if (missing < 0) {
+                try (PreparedStatement give = conn.prepareStatement("UPDATE products SET stock = stock + ? WHERE id = ?")) {
+                    give.setInt(1, -missing);
+                    give.setInt(2, item.getProductId());
+                    give.executeUpdate();
+                }
+            }
+            if (reserved > 0) {
+                try (PreparedStatement delete = conn.prepareStatement(
+                        "DELETE FROM stock_reservations WHERE user_id = ? AND product_id = ?")) {
+                    delete.setInt(1, order.getUserId());
+                    delete.setInt(2, item.getProductId());
+                    delete.executeUpdate();
+                }
+            }
+        }
+        shipping.createShipping(conn, order.getId(), order.getShippingAddress());
+    }
+
+    private interface Step {
+        void run(Connection conn) throws SQLException;
+    }
+}
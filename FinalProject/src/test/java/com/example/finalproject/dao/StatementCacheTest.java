@@ -0,0 +1,110 @@
+package com.example.finalproject.dao;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StatementCacheTest {
+
+    private static final Object[] SQL = {"SELECT 1"};
+
+    // Every result set handed out by the fake driver, and whether it was closed
+    private final List<Map<String, Object>> results = new ArrayList<>();
+    private final List<Map<String, Object>> statements = new ArrayList<>();
+    private StatementCache cache;
+
+    @BeforeEach
+    void setUp() {
+        Connection raw = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> method.getName().equals("prepareStatement") ? statement() : null);
+        cache = new StatementCache(raw, 10, new LongAdder(), new LongAdder());
+    }
+
+    // A statement that remembers its settings and counts executions
+    private PreparedStatement statement() {
+        Map<String, Object> state = new HashMap<>(Map.of("fetchSize", 0, "maxRows", 0, "queryTimeout", 0, "executions", 0));
+        statements.add(state);
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "getFetchSize" -> state.get("fetchSize");
+                    case "getMaxRows" -> state.get("maxRows");
+                    case "getQueryTimeout" -> state.get("queryTimeout");
+                    case "setFetchSize" -> state.put("fetchSize", args[0]);
+                    case "setMaxRows" -> state.put("maxRows", args[0]);
+                    case "setQueryTimeout" -> state.put("queryTimeout", args[0]);
+                    case "executeQuery" -> {
+                        state.merge("executions", 1, (a, b) -> (Integer) a + (Integer) b);
+                        yield resultSet();
+                    }
+                    default -> null;
+                });
+    }
+
+    private ResultSet resultSet() {
+        Map<String, Object> state = new HashMap<>(Map.of("closed", false));
+        results.add(state);
+        return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ResultSet.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) state.put("closed", true);
+                    return null;
+                });
+    }
+
+    @Test
+    void closedStatementIsReusedForTheSameSql() throws SQLException {
+        PreparedStatement first = cache.checkout(null, SQL);
+        first.close();
+        assertTrue(first.isClosed());
+        PreparedStatement second = cache.checkout(null, SQL);
+        assertFalse(second.isClosed());
+        assertEquals(1, statements.size());
+    }
+
+    @Test
+    void leakedLeaseIsStaleOnceCheckedIn() throws SQLException {
+        PreparedStatement leaked = cache.checkout(null, SQL);
+        cache.checkinAll();
+
+        PreparedStatement next = cache.checkout(null, SQL);
+        next.executeQuery();
+        assertTrue(leaked.isClosed());
+        assertThrows(SQLException.class, leaked::executeQuery);
+
+        // The late close() of the leaked lease must not check in the next borrower's statement
+        leaked.close();
+        assertFalse(next.isClosed());
+        assertFalse((Boolean) results.get(0).get("closed"));
+        assertEquals(1, statements.get(0).get("executions"));
+        next.close();
+        assertTrue((Boolean) results.get(0).get("closed"));
+    }
+
+    @Test
+    void settingsDoNotCarryOverToTheNextBorrower() throws SQLException {
+        PreparedStatement first = cache.checkout(null, SQL);
+        first.setFetchSize(Integer.MIN_VALUE);
+        first.setMaxRows(10);
+        first.setQueryTimeout(5);
+        first.close();
+
+        PreparedStatement second = cache.checkout(null, SQL);
+        assertEquals(0, second.getFetchSize());
+        assertEquals(0, second.getMaxRows());
+        assertEquals(0, second.getQueryTimeout());
+    }
+}
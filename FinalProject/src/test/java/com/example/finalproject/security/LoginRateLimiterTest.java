@@ -0,0 +1,147 @@
+package com.example.finalproject.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LoginRateLimiterTest {
+
+    private static final String EMAIL = "ana@example.com";
+    private static final String CLIENT = "client-1";
+
+    private long now = 1_000_000L;
+
+    // emailBurst/perMinute, clientBurst/perMinute, 3 failures lock out for 30s, at most 100 keys
+    private LoginRateLimiter limiter(int emailBurst, int emailPerMinute, int clientBurst, int clientPerMinute) {
+        return new LoginRateLimiter(emailBurst, emailPerMinute, clientBurst, clientPerMinute, 3, 30, 100, () -> now);
+    }
+
+    private LoginRateLimiter unthrottled() {
+        return limiter(1000, 1000, 1000, 1000);
+    }
+
+    @Test
+    void emailBucketAllowsTheBurstThenRefillsOverTime() throws LoginThrottledException {
+        LoginRateLimiter limiter = limiter(3, 6, 100, 100);
+        for (int i = 0; i < 3; i++) limiter.acquire(EMAIL, CLIENT);
+        LoginThrottledException e = assertThrows(LoginThrottledException.class, () -> limiter.acquire(EMAIL, CLIENT));
+        // 6 per minute: the next token is 10 seconds away
+        assertEquals(10_000, e.getRetryAfterMillis(), 1);
+
+        now += 9_999;
+        assertThrows(LoginThrottledException.class, () -> limiter.acquire(EMAIL, CLIENT));
+        now += 1;
+        limiter.acquire(EMAIL, CLIENT);
+        assertThrows(LoginThrottledException.class, () -> limiter.acquire(EMAIL, CLIENT));
+
+        // Refill never exceeds the burst
+        now += 3_600_000;
+        for (int i = 0; i < 3; i++) limiter.acquire(EMAIL, CLIENT);
+        assertThrows(LoginThrottledException.class, () -> limiter.acquire(EMAIL, CLIENT));
+    }
+
+    @Test
+    void emailsShareABucketRegardlessOfCaseAndSpaces() throws LoginThrottledException {
+        LoginRateLimiter limiter = limiter(2, 1, 100, 100);
+        limiter.acquire(EMAIL, CLIENT);
+        limiter.acquire(" ANA@Example.com ", CLIENT);
+        assertThrows(LoginThrottledException.class, () -> limiter.acquire(EMAIL, CLIENT));
+        // Another email has its own budget
+        assertDoesNotThrow(() -> limiter.acquire("bo@example.com", CLIENT));
+    }
+
+    @Test
+    void clientBucketLimitsAttemptsAcrossEmails() throws LoginThrottledException {
+        LoginRateLimiter limiter = limiter(100, 100, 3, 1);
+        limiter.acquire("a@example.com", CLIENT);
+        limiter.acquire("b@example.com", CLIENT);
+        limiter.acquire("c@example.com", CLIENT);
+        assertThrows(LoginThrottledException.class, () -> limiter.acquire("d@example.com", CLIENT));
+        assertDoesNotThrow(() -> limiter.acquire("d@example.com", "client-2"));
+    }
+
+    @Test
+    void refusedAttemptsDoNotSpendTheOtherBucket() throws LoginThrottledException {
+        LoginRateLimiter limiter = limiter(1, 1, 2, 1);
+        limiter.acquire(EMAIL, CLIENT);
+        // Refused by the email bucket, so the client keeps its second token
+        assertThrows(LoginThrottledException.class, () -> limiter.acquire(EMAIL, CLIENT));
+        assertDoesNotThrow(() -> limiter.acquire("bo@example.com", CLIENT));
+    }
+
+    @Test
+    void failuresInARowLockTheEmailOut() throws LoginThrottledException {
+        LoginRateLimiter limiter = unthrottled();
+        limiter.onFailure(EMAIL, "a");
+        limiter.onFailure(EMAIL, "b");
+        limiter.acquire(EMAIL, CLIENT);
+        limiter.onFailure(EMAIL, "c");
+
+        LoginThrottledException e = assertThrows(LoginThrottledException.class, () -> limiter.acquire(EMAIL, CLIENT));
+        assertEquals(30_000, e.getRetryAfterMillis());
+        assertDoesNotThrow(() -> limiter.acquire("bo@example.com", CLIENT));
+
+        now += 30_000;
+        limiter.acquire(EMAIL, CLIENT);
+    }
+
+    @Test
+    void lockoutDoublesWithEveryFurtherLockoutUpToFifteenMinutes() {
+        LoginRateLimiter limiter = unthrottled();
+        long[] expected = {30_000, 60_000, 120_000, 240_000, 480_000, 900_000, 900_000};
+        for (long lockout : expected) {
+            for (int i = 0; i < 3; i++) limiter.onFailure(EMAIL, "wrong" + i);
+            LoginThrottledException e = assertThrows(LoginThrottledException.class, () -> limiter.acquire(EMAIL, CLIENT));
+            assertEquals(lockout, e.getRetryAfterMillis());
+            now += lockout;
+        }
+    }
+
+    @Test
+    void successClearsFailuresAndLockoutHistory() throws LoginThrottledException {
+        LoginRateLimiter limiter = unthrottled();
+        for (int i = 0; i < 3; i++) limiter.onFailure(EMAIL, "wrong");
+        now += 30_000;
+        limiter.onSuccess(EMAIL);
+
+        // Counting starts over, and the next lockout is the first one again
+        limiter.onFailure(EMAIL, "a");
+        limiter.onFailure(EMAIL, "b");
+        limiter.acquire(EMAIL, CLIENT);
+        limiter.onFailure(EMAIL, "c");
+        LoginThrottledException e = assertThrows(LoginThrottledException.class, () -> limiter.acquire(EMAIL, CLIENT));
+        assertEquals(30_000, e.getRetryAfterMillis());
+    }
+
+    @Test
+    void knownFailuresAreRememberedForFiveMinutes() {
+        LoginRateLimiter limiter = unthrottled();
+        limiter.onFailure(EMAIL, "hunter2");
+
+        assertTrue(limiter.isKnownFailure(EMAIL, "hunter2"));
+        assertTrue(limiter.isKnownFailure("Ana@Example.com", "hunter2"));
+        assertFalse(limiter.isKnownFailure(EMAIL, "Hunter2"));
+        assertFalse(limiter.isKnownFailure("bo@example.com", "hunter2"));
+
+        now += 5 * 60_000 - 1;
+        assertTrue(limiter.isKnownFailure(EMAIL, "hunter2"));
+        now += 1;
+        assertFalse(limiter.isKnownFailure(EMAIL, "hunter2"));
+    }
+
+    @Test
+    void resetForgetsKnownFailuresAndLockout() {
+        LoginRateLimiter limiter = unthrottled();
+        for (int i = 0; i < 3; i++) limiter.onFailure(EMAIL, "old-password");
+        assertThrows(LoginThrottledException.class, () -> limiter.acquire(EMAIL, CLIENT));
+
+        // e.g. the password was changed to the one that failed before
+        limiter.reset(EMAIL);
+        assertFalse(limiter.isKnownFailure(EMAIL, "old-password"));
+        assertDoesNotThrow(() -> limiter.acquire(EMAIL, CLIENT));
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.finalproject.service;
+
+import com.example.finalproject.dao.CartDao;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CartStoreTest {
+
+    @TempDir
+    Path dir;
+
+    // cart_items as the fake DAO sees it: user -> product -> qty
+    private final Map<Integer, Map<Integer, Integer>> db = new HashMap<>();
+    private boolean failWrites;
+    // Runs inside writeBatch, while the batch is in flight
+    private Runnable duringWrite = () -> {};
+    private CartStore store;
+
+    private final CartDao dao = new CartDao() {
+        @Override
+        public Map<Integer, Integer> loadCart(int userId) {
+            return new LinkedHashMap<>(db.getOrDefault(userId, Map.of()));
+        }
+
+        @Override
+        public void writeBatch(Set<Integer> clearedUsers, Map<Integer, Map<Integer, Integer>> lines) throws SQLException {
+            duringWrite.run();
+            if (failWrites) throw new SQLException("Lock wait timeout exceeded");
+            clearedUsers.forEach(db::remove);
+            lines.forEach((userId, products) -> products.forEach((productId, qty) -> {
+                Map<Integer, Integer> cart = db.computeIfAbsent(userId, id -> new LinkedHashMap<>());
+                if (qty == 0) cart.remove(productId);
+                else cart.put(productId, qty);
+            }));
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        store = new CartStore(dir, 60_000, 1000, dao);
+    }
+
+    @AfterEach
+    void tearDown() {
+        failWrites = false;
+        duringWrite = () -> {};
+        store.stop();
+    }
+
+    private String read(String file) throws IOException {
+        return Files.readString(dir.resolve(file), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void replaysBothLogsOldestFirstAndSkipsATornLine() throws Exception {
+        db.put(2, new LinkedHashMap<>(Map.of(99, 1)));
+        db.put(3, new LinkedHashMap<>(Map.of(30, 1)));
+        // An unfinished batch of the last run, then what was logged after it; the app died mid-write
+        Files.writeString(dir.resolve("cart.log.flushing"), "S 1 10 2\nS 1 11 1\nC 3\n");
+        Files.writeString(dir.resolve("cart.log"), "S 1 10 5\nC 2\nS 2 20 1\nS 1 1");
+
+        store.open();
+        assertEquals(6, store.getPendingEvents());
+        assertEquals(Map.of(10, 5, 11, 1), store.load(1));
+        assertEquals(Map.of(20, 1), store.load(2));
+        assertEquals(Map.of(), store.load(3));
+
+        store.flush();
+        assertEquals(Map.of(1, Map.of(10, 5, 11, 1), 2, Map.of(20, 1)), db);
+        assertFalse(Files.exists(dir.resolve("cart.log.flushing")));
+        assertEquals("", read("cart.log"));
+        assertEquals(0, store.getPendingEvents());
+    }
+
+    @Test
+    void flushRotatesTheLogAndKeepsTheBatchVisibleUntilItCommits() throws Exception {
+        store.open();
+        store.setLine(1, 10, 2);
+        duringWrite = () -> {
+            try {
+                assertEquals("S 1 10 2\n", read("cart.log.flushing"));
+                assertEquals("", read("cart.log"));
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            // Not in the database yet, but neither lost from the overlay
+            assertEquals(Map.of(10, 2), store.load(1));
+            store.setLine(1, 11, 1);
+            duringWrite = () -> {};
+        };
+
+        store.flush();
+        assertEquals(Map.of(1, Map.of(10, 2)), db);
+        assertFalse(Files.exists(dir.resolve("cart.log.flushing")));
+        assertEquals("S 1 11 1\n", read("cart.log"));
+        assertEquals(1, store.getPendingEvents());
+        assertEquals(Map.of(10, 2, 11, 1), store.load(1));
+    }
+
+    @Test
+    void failedBatchIsMergedUnderNewerChanges() throws Exception {
+        db.put(2, new LinkedHashMap<>(Map.of(21, 1)));
+        store.open();
+        store.setLine(1, 10, 2);
+        store.setLine(1, 11, 1);
+        store.setLine(2, 20, 1);
+
+        failWrites = true;
+        duringWrite = () -> {
+            store.setLine(1, 10, 7);
+            store.clear(2);
+            duringWrite = () -> {};
+        };
+        assertThrows(SQLException.class, store::flush);
+
+        // Three events of the batch plus two newer ones
+        assertEquals(5, store.getPendingEvents());
+        assertEquals(Map.of(10, 7, 11, 1), store.load(1));
+        assertEquals(Map.of(), store.load(2));
+        assertTrue(Files.exists(dir.resolve("cart.log.flushing")));
+
+        // A crash now would replay to the same state
+        CartStore replayed = new CartStore(dir, 60_000, 1000, dao);
+        replayed.open();
+        assertEquals(Map.of(10, 7, 11, 1), replayed.load(1));
+        assertEquals(Map.of(), replayed.load(2));
+
+        failWrites = false;
+        store.flush();
+        assertEquals(Map.of(1, Map.of(10, 7, 11, 1)), db);
+        assertEquals(0, store.getPendingEvents());
+        assertFalse(Files.exists(dir.resolve("cart.log.flushing")));
+    }
+
+    @Test
+    void removedLinesAndClearsOverlayTheSavedCart() throws Exception {
+        db.put(1, new LinkedHashMap<>(Map.of(10, 1, 11, 1)));
+        store.open();
+        store.removeLine(1, 10);
+        store.setLine(1, 12, 3);
+        assertEquals(Map.of(11, 1, 12, 3), store.load(1));
+
+        store.clear(1);
+        store.setLine(1, 13, 1);
+        assertEquals(Map.of(13, 1), store.load(1));
+
+        store.flush();
+        assertEquals(Map.of(1, Map.of(13, 1)), db);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.finalproject.service;
+
+import com.example.finalproject.model.CartLine;
+import com.example.finalproject.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CartTest {
+
+    private static Product product(int id, double price) {
+        return new Product(id, "P" + id, "Misc", price, "", null, 100);
+    }
+
+    @Test
+    void totalIsKeptInCentsWithoutDrift() {
+        CartService.Cart cart = new CartService.Cart();
+        Product p = product(1, 0.1);
+        for (int i = 0; i < 1000; i++) cart.add(p, 1, 0.1);
+        assertEquals(10_000, cart.totalCents());
+        assertEquals(1000, cart.quantity(1));
+    }
+
+    @Test
+    void unitPriceIsFixedWhenTheLineIsFirstAdded() {
+        CartService.Cart cart = new CartService.Cart();
+        Product p = product(1, 19.99);
+        assertEquals(2, cart.add(p, 2, 19.99));
+        assertEquals(3, cart.add(p, 1, 9.99));
+        assertEquals(5997, cart.totalCents());
+        CartLine line = cart.lines().get(0);
+        assertEquals(19.99, line.getUnitPrice());
+        assertEquals(3, line.getQuantity());
+    }
+
+    @Test
+    void pricesAreRoundedToCents() {
+        CartService.Cart cart = new CartService.Cart();
+        cart.add(product(1, 10), 3, 3.333);
+        assertEquals(999, cart.totalCents());
+        assertEquals(3.33, cart.lines().get(0).getUnitPrice());
+    }
+
+    @Test
+    void removingALineSubtractsItsTotal() {
+        CartService.Cart cart = new CartService.Cart();
+        cart.add(product(1, 5), 2, 5);
+        cart.add(product(2, 1.25), 4, 1.25);
+        assertTrue(cart.remove(1));
+        assertFalse(cart.remove(1));
+        assertEquals(500, cart.totalCents());
+        assertTrue(cart.remove(2));
+        assertEquals(0, cart.totalCents());
+        assertTrue(cart.isEmpty());
+    }
+
+    @Test
+    void restoredLinesDoNotOverrideNewerOnes() {
+        CartService.Cart cart = new CartService.Cart();
+        cart.add(product(1, 2), 1, 2);
+        cart.addIfAbsent(product(1, 2), 5, 2);
+        cart.addIfAbsent(product(2, 3), 2, 3);
+        assertEquals(1, cart.quantity(1));
+        assertEquals(800, cart.totalCents());
+        assertEquals(List.of(1, 2), cart.lines().stream().map(CartLine::getProductId).toList());
+    }
+
+    @Test
+    void concurrentAddsKeepTheTotalConsistent() throws InterruptedException {
+        CartService.Cart cart = new CartService.Cart();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int id = t % 4;
+            pool.execute(() -> {
+                for (int i = 0; i < 1000; i++) cart.add(product(id, 1.5), 1, 1.5);
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        long sum = 0;
+        for (CartLine line : cart.lines()) sum += Math.round(line.getUnitPrice() * 100) * line.getQuantity();
+        assertEquals(8000 * 150, cart.totalCents());
+        assertEquals(sum, cart.totalCents());
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.finalproject.service;
+
+import com.example.finalproject.dao.ProductDao;
+import com.example.finalproject.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductCatalogCacheTest {
+
+    private final Map<Integer, Product> table = new ConcurrentHashMap<>();
+    private final AtomicInteger queries = new AtomicInteger();
+    // Runs inside every query (after getById read its row), e.g. to stall it or to write meanwhile
+    private volatile Runnable duringQuery = () -> {};
+    private ProductCatalogCache cache;
+
+    @BeforeEach
+    void setUp() {
+        for (int id = 1; id <= 3; id++) table.put(id, product(id, 10.0 * id));
+        cache = new ProductCatalogCache(new ProductDao() {
+            @Override
+            public Optional<Product> getById(int id) {
+                Optional<Product> row = Optional.ofNullable(table.get(id)).map(Product::new);
+                query();
+                return row;
+            }
+
+            @Override
+            public List<Product> findByIds(Collection<Integer> ids) {
+                query();
+                List<Product> found = new ArrayList<>();
+                for (int id : ids) if (table.containsKey(id)) found.add(new Product(table.get(id)));
+                return found;
+            }
+
+            @Override
+            public List<Product> getAllProducts() {
+                query();
+                List<Product> all = new ArrayList<>();
+                table.values().forEach(p -> all.add(new Product(p)));
+                return all;
+            }
+        }, 60_000, 100);
+    }
+
+    private void query() {
+        queries.incrementAndGet();
+        duringQuery.run();
+    }
+
+    private static Product product(int id, double price) {
+        return new Product(id, "Product " + id, "Misc", price, "", null, 5);
+    }
+
+    @Test
+    void missesAreLoadedOnceAndReturnedInOrder() {
+        assertEquals(List.of(3, 1), cache.getAll(List.of(3, 1)).stream().map(Product::getId).toList());
+        assertEquals(1, queries.get());
+        assertEquals(List.of(1, 2, 3), cache.getAll(List.of(1, 2, 3)).stream().map(Product::getId).toList());
+        assertEquals(2, queries.get());
+        cache.get(2);
+        assertEquals(2, queries.get());
+    }
+
+    @Test
+    void hitsAndInvalidationsDoNotWaitForASlowLoad() throws Exception {
+        cache.get(1);
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        duringQuery = () -> {
+            stalled.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        CompletableFuture<List<Product>> slow = CompletableFuture.supplyAsync(cache::getAll);
+        assertTrue(stalled.await(5, TimeUnit.SECONDS));
+
+        // The full load is still running; a cached read and an invalidation complete meanwhile
+        CompletableFuture<Optional<Product>> hit = CompletableFuture.supplyAsync(() -> cache.get(1));
+        assertEquals(1, hit.get(5, TimeUnit.SECONDS).orElseThrow().getId());
+        CompletableFuture.runAsync(() -> cache.invalidate(2)).get(5, TimeUnit.SECONDS);
+
+        release.countDown();
+        assertEquals(3, slow.get(5, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    void rowsLoadedAcrossAnInvalidationAreNotCached() {
+        // The product is updated and invalidated while its old row is being read
+        duringQuery = () -> {
+            duringQuery = () -> {};
+            cache.invalidate(1);
+            table.put(1, product(1, 99.0));
+        };
+        assertEquals(10.0, cache.get(1).orElseThrow().getPrice());
+        assertEquals(99.0, cache.get(1).orElseThrow().getPrice());
+    }
+
+    @Test
+    void callersGetCopies() {
+        cache.get(1).orElseThrow().setPrice(1.0);
+        assertEquals(10.0, cache.get(1).orElseThrow().getPrice());
+    }
+}
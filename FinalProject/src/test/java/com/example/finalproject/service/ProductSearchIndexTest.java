@@ -0,0 +1,98 @@
+package com.example.finalproject.service;
+
+import com.example.finalproject.dao.ProductDao;
+import com.example.finalproject.dao.RowHandler;
+import com.example.finalproject.model.Product;
+import com.example.finalproject.model.ProductSort;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProductSearchIndexTest {
+
+    private final List<Product> catalog = new ArrayList<>();
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        for (int id = 1; id <= 25; id++) {
+            String category = id % 2 == 0 ? "Audio" : "Video";
+            catalog.add(new Product(id, "Cable " + (char) ('a' + (id * 7) % 26), category, (id * 37) % 50, "", null, 10));
+        }
+        index = new ProductSearchIndex(new ProductDao() {
+            @Override
+            public void streamAll(int fetchSize, RowHandler<Product> handler) throws IOException {
+                for (Product p : catalog) handler.accept(p);
+            }
+        });
+    }
+
+    private List<Integer> allPages(String category, ProductSort sort, int pageSize) {
+        List<Integer> ids = new ArrayList<>();
+        Product after = null;
+        while (true) {
+            List<Integer> page = index.findPage("cable", category, sort, after, pageSize);
+            assertTrue(page.size() <= pageSize);
+            if (page.isEmpty()) return ids;
+            ids.addAll(page);
+            after = catalog.get(page.get(page.size() - 1) - 1);
+        }
+    }
+
+    @Test
+    void pagesCoverEveryMatchOnceInEachOrder() {
+        for (ProductSort sort : ProductSort.values()) {
+            List<Integer> paged = allPages(null, sort, 4);
+            List<Integer> whole = index.findPage("cable", null, sort, null, 100);
+            assertEquals(whole, paged, sort.name());
+            assertEquals(25, paged.size());
+        }
+    }
+
+    @Test
+    void sortsMatchTheSqlOrder() {
+        List<Integer> byPrice = index.findPage("cable", null, ProductSort.PRICE_LOW, null, 100);
+        for (int i = 1; i < byPrice.size(); i++) {
+            Product a = catalog.get(byPrice.get(i - 1) - 1);
+            Product b = catalog.get(byPrice.get(i) - 1);
+            assertTrue(a.getPrice() < b.getPrice() || (a.getPrice() == b.getPrice() && a.getId() < b.getId()));
+        }
+        assertEquals(List.of(25, 24, 23), index.findPage("cable", null, ProductSort.NEWEST, null, 3));
+        // Equal scores rank newest first
+        assertEquals(List.of(25, 24, 23), index.findPage("cable", null, ProductSort.RELEVANCE, null, 3));
+    }
+
+    @Test
+    void categoryFilterAndCountUseTheIndex() {
+        assertEquals(25, index.count("cable", "All"));
+        assertEquals(12, index.count("cable", "audio"));
+        List<Integer> audio = allPages("Audio", ProductSort.NAME, 5);
+        assertEquals(12, audio.size());
+        for (int id : audio) assertEquals(0, id % 2);
+        assertEquals("Video", index.category(3).orElseThrow());
+    }
+
+    @Test
+    void relevancePageAfterAProductThatNoLongerMatchesIsEmpty() {
+        index.findPage("cable", null, ProductSort.RELEVANCE, null, 1);
+        Product renamed = new Product(25, "Lamp", "Video", 5, "", null, 1);
+        index.put(renamed);
+        assertEquals(List.of(), index.findPage("cable", null, ProductSort.RELEVANCE, renamed, 10));
+        // Other orders keyset on the product's own values
+        assertEquals(List.of(24, 23), index.findPage("cable", null, ProductSort.NEWEST, renamed, 2));
+    }
+
+    @Test
+    void removedProductsDropOutOfResults() {
+        index.findPage("cable", null, ProductSort.NEWEST, null, 1);
+        index.remove(25);
+        assertEquals(24, index.count("cable", null));
+        assertEquals(List.of(24), index.findPage("cable", null, ProductSort.NEWEST, null, 1));
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.finalproject.service;
+
+import com.example.finalproject.dao.ReportDao;
+import com.example.finalproject.model.DailySale;
+import com.example.finalproject.model.TopProduct;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReportServiceTest {
+
+    private static final LocalDate D1 = LocalDate.of(2024, 3, 1);
+    private static final LocalDate D2 = LocalDate.of(2024, 3, 2);
+    private static final LocalDate D5 = LocalDate.of(2024, 3, 5);
+
+    // What sales_product_daily holds: day, product id, name, category, quantity, revenue
+    private final List<Object[]> table = new ArrayList<>();
+    private ReportService reports;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        row(D1, 1, "Mouse", "Accessories", 3, 30.00);
+        row(D1, 2, "Monitor", "Displays", 1, 199.99);
+        row(D2, 1, "Mouse", "Accessories", 2, 20.00);
+        row(D5, 3, "Keyboard", "Accessories", 4, 120.00);
+        row(D5, 2, "Monitor", "Displays", 1, 199.99);
+
+        reports = new ReportService(new ReportDao() {
+            @Override
+            public void streamProductDays(LocalDate day, Collection<Integer> productIds, int fetchSize, CellHandler handler) {
+                table.stream()
+                        .filter(r -> day == null || day.equals(r[0]))
+                        .filter(r -> productIds == null || productIds.contains((Integer) r[1]))
+                        .sorted((a, b) -> ((LocalDate) a[0]).compareTo((LocalDate) b[0]))
+                        .forEach(r -> handler.accept((LocalDate) r[0], (Integer) r[1], (String) r[2], (String) r[3],
+                                (Integer) r[4], (Double) r[5]));
+            }
+        });
+        reports.reload();
+    }
+
+    private void row(LocalDate day, int productId, String name, String category, int quantity, double revenue) {
+        table.removeIf(r -> r[0].equals(day) && r[1].equals(productId));
+        if (quantity != 0 || revenue != 0) table.add(new Object[]{day, productId, name, category, quantity, revenue});
+    }
+
+    private static List<String> names(List<TopProduct> top) {
+        return top.stream().map(TopProduct::getProductName).toList();
+    }
+
+    @Test
+    void revenueSumsInclusiveRange() {
+        assertEquals(569.98, reports.revenue(D1, D5), 1e-9);
+        assertEquals(249.99, reports.revenue(D1, D2), 1e-9);
+        assertEquals(20.00, reports.revenue(D2, D2), 1e-9);
+        assertEquals(0.0, reports.revenue(D2.plusDays(1), D5.minusDays(1)), 1e-9);
+        // Ranges reaching outside the data are clamped
+        assertEquals(569.98, reports.revenue(D1.minusYears(1), D5.plusYears(1)), 1e-9);
+    }
+
+    @Test
+    void dailySalesSkipsEmptyDaysAndFiltersByCategory() {
+        List<DailySale> all = reports.dailySales(D1, D5, null);
+        assertEquals(List.of("2024-03-01", "2024-03-02", "2024-03-05"), all.stream().map(DailySale::getDate).toList());
+        assertEquals(229.99, all.get(0).getRevenue(), 1e-9);
+
+        List<DailySale> displays = reports.dailySales(D1, D5, "Displays");
+        assertEquals(List.of("2024-03-01", "2024-03-05"), displays.stream().map(DailySale::getDate).toList());
+        assertTrue(reports.dailySales(D1, D5, "Unknown").isEmpty());
+    }
+
+    @Test
+    void categoryRevenueHighestFirst() {
+        Map<String, Double> byCategory = reports.categoryRevenue(D1, D5);
+        assertEquals(List.of("Displays", "Accessories"), List.copyOf(byCategory.keySet()));
+        assertEquals(170.00, byCategory.get("Accessories"), 1e-9);
+    }
+
+    @Test
+    void topProductsByQuantityThenRevenueWithLimit() {
+        List<TopProduct> top = reports.topProducts(D1, D5, null, 10);
+        assertEquals(List.of("Mouse", "Keyboard", "Monitor"), names(top));
+        assertEquals(5, top.get(0).getQuantitySold());
+        assertEquals(50.00, top.get(0).getRevenue(), 1e-9);
+
+        assertEquals(List.of("Mouse"), names(reports.topProducts(D1, D5, null, 1)));
+        assertTrue(reports.topProducts(D1, D5, null, 0).isEmpty());
+        assertEquals(List.of("Mouse", "Keyboard"), names(reports.topProducts(D1, D5, "Accessories", 5)));
+        // Keyboard (4) outsells Mouse (2) once the 1st is out of the window
+        assertEquals(List.of("Keyboard", "Mouse"), names(reports.topProducts(D2, D5, "Accessories", 5)));
+    }
+
+    @Test
+    void topProductsTieBreaksOnRevenue() throws SQLException {
+        row(D5, 4, "Headset", "Accessories", 4, 160.00);
+        reports.reload();
+        // Headset and Keyboard both sold 4 on the 5th; Headset brought in more
+        assertEquals(List.of("Headset", "Keyboard"), names(reports.topProducts(D5, D5, null, 2)));
+    }
+
+    @Test
+    void refreshUpdatesInsertsAndRemovesCells() throws SQLException {
+        // A new delivered order on the 2nd, and a new day before the first one
+        row(D2, 1, "Mouse", "Accessories", 5, 50.00);
+        row(D2, 3, "Keyboard", "Accessories", 1, 30.00);
+        reports.refresh(D2, Set.of(1, 3));
+        assertEquals(80.00, reports.revenue(D2, D2), 1e-9);
+
+        LocalDate earlier = D1.minusDays(10);
+        row(earlier, 2, "Monitor", "Displays", 2, 400.00);
+        reports.refresh(earlier, Set.of(2));
+        assertEquals(earlier, reports.firstDay());
+        assertEquals(400.00, reports.revenue(earlier, earlier), 1e-9);
+
+        // The only order of the 5th deleted
+        row(D5, 3, null, null, 0, 0);
+        row(D5, 2, null, null, 0, 0);
+        reports.refresh(D5, Set.of(2, 3));
+        assertEquals(D2, reports.lastDay());
+        assertEquals(0.0, reports.revenue(D5, D5), 1e-9);
+        assertEquals(List.of("Mouse", "Monitor", "Keyboard"),
+                names(reports.topProducts(earlier, D5, null, 5)));
+    }
+
+    @Test
+    void emptyTable() throws SQLException {
+        table.clear();
+        reports.reload();
+        assertNull(reports.firstDay());
+        assertEquals(0.0, reports.revenue(D1, D5), 1e-9);
+        assertTrue(reports.topProducts(D1, D5, null, 5).isEmpty());
+        assertTrue(reports.getCategories().isEmpty());
+    }
+}
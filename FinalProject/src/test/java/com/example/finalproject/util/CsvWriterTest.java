@@ -0,0 +1,87 @@
+package com.example.finalproject.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CsvWriterTest {
+
+    private interface Rows {
+        void write(CsvWriter csv) throws IOException;
+    }
+
+    private static String csv(Rows rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (CsvWriter csv = new CsvWriter(Channels.newChannel(bytes), 16)) {
+            rows.write(csv);
+        }
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void plainFieldsAreNotQuoted() throws IOException {
+        assertEquals("id,name,total\n", csv(c -> c.row("id", "name", "total")));
+        assertEquals("7,Desk lamp\n", csv(c -> {
+            c.field(7).field("Desk lamp");
+            c.endRow();
+        }));
+    }
+
+    @Test
+    void quotesFieldsWithSeparatorsQuotesAndLineBreaks() throws IOException {
+        assertEquals("\"a,b\",\"say \"\"hi\"\"\",\"two\nlines\",\"cr\rhere\"\n",
+                csv(c -> c.row("a,b", "say \"hi\"", "two\nlines", "cr\rhere")));
+    }
+
+    @Test
+    void nullIsAnEmptyField() throws IOException {
+        assertEquals(",x,\n", csv(c -> c.row(null, "x", null)));
+        assertEquals("\n", csv(c -> c.row()));
+    }
+
+    @Test
+    void nonAsciiIsWrittenAsUtf8() throws IOException {
+        assertEquals("Café,東京\n", csv(c -> c.row("Café", "東京")));
+    }
+
+    @Test
+    void moneyHasExactlyTwoDecimals() throws IOException {
+        assertEquals("12.50,0.05,0.00,3.00,1234567.89\n", csv(c -> {
+            c.money(12.5).money(0.05).money(0).money(3).money(1234567.89);
+            c.endRow();
+        }));
+    }
+
+    @Test
+    void moneyRoundsToTheNearestCent() throws IOException {
+        assertEquals("0.10,19.99,2.68\n", csv(c -> {
+            // 0.1 + 0.2 and friends are not exact in binary
+            c.money(0.1 + 0.2 - 0.2).money(19.994).money(2.675 + 0.001);
+            c.endRow();
+        }));
+    }
+
+    @Test
+    void negativeMoney() throws IOException {
+        assertEquals("-0.50,-12.05,0.00\n", csv(c -> {
+            c.money(-0.5).money(-12.05).money(-0.001);
+            c.endRow();
+        }));
+    }
+
+    @Test
+    void rowsLongerThanTheBufferAreKeptWhole() throws IOException {
+        String longField = "x".repeat(100);
+        assertEquals(longField + ",1\n" + longField + ",2\n", csv(c -> {
+            c.field(longField).field(1);
+            c.endRow();
+            c.field(longField).field(2);
+            c.endRow();
+        }));
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.finalproject.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static com.example.finalproject.util.SearchIndex.field;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SearchIndexTest {
+
+    private SearchIndex<Integer> sample() {
+        SearchIndex<Integer> index = new SearchIndex<>(Comparator.reverseOrder());
+        index.put(1, field("Wireless Mouse", 3), field("Electronics", 2), field("Small and quiet", 1));
+        index.put(2, field("Mouse Pad", 3), field("Accessories", 2), field("Works with any wireless mouse", 1));
+        index.put(3, field("Keyboard", 3), field("Electronics", 2), field("Wireless, full size", 1));
+        index.put(4, field("Desk Lamp", 3), field("Home", 2), field(null, 1));
+        return index;
+    }
+
+    @Test
+    void nameMatchOutranksDescriptionMatch() {
+        // In the name of 1, the description of 2 and 3 (those tie: newest first)
+        assertEquals(List.of(1, 3, 2), sample().search("wireless"));
+        // In both names: a tie
+        assertEquals(List.of(2, 1), sample().search("mouse"));
+    }
+
+    @Test
+    void everyTermMustMatch() {
+        assertEquals(List.of(1, 2), sample().search("wireless mouse"));
+        assertEquals(List.of(), sample().search("wireless lamp"));
+        assertEquals(List.of(), sample().search("   "));
+    }
+
+    @Test
+    void prefixesTyposAndAccentsMatch() {
+        assertEquals(List.of(3), sample().search("keyb"));
+        assertEquals(List.of(1, 3, 2), sample().search("wirless"));
+        assertEquals(List.of(4), sample().search("LÄMP"));
+    }
+
+    @Test
+    void equalScoresUseTheTieOrder() {
+        SearchIndex<Integer> index = new SearchIndex<>(Comparator.reverseOrder());
+        for (int id = 1; id <= 5; id++) index.put(id, field("Cable", 1));
+        assertEquals(List.of(5, 4, 3, 2, 1), index.search("cable"));
+    }
+
+    @Test
+    void hitsCarryTheirScoresInRankOrder() {
+        SearchIndex<Integer> index = sample();
+        List<SearchIndex.Hit<Integer>> hits = index.searchHits("wireless");
+        assertEquals(3, hits.size());
+        for (int i = 1; i < hits.size(); i++) {
+            assertTrue(index.rankOrder().compare(hits.get(i - 1), hits.get(i)) < 0);
+            assertTrue(hits.get(i - 1).getScore() >= hits.get(i).getScore());
+        }
+    }
+
+    @Test
+    void replacedAndRemovedDocumentsLeaveNoTrace() {
+        SearchIndex<Integer> index = sample();
+        index.put(1, field("Trackball", 3));
+        index.remove(2);
+        assertEquals(List.of(), index.search("mouse"));
+        assertEquals(List.of(1), index.search("trackball"));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void withinDistanceCountsTranspositionsAsOneEdit() {
+        assertTrue(SearchIndex.withinDistance("lamp", "lmap", 1));
+        assertTrue(SearchIndex.withinDistance("mouse", "mose", 1));
+        assertTrue(!SearchIndex.withinDistance("mouse", "house", 0));
+    }
+}